@@ -0,0 +1,223 @@
+package su.foxochat.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import su.foxochat.Main;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens loadtest.clients gateway connections against a backend, spreads them over public channels of
+ * loadtest.channel_size members and drives heartbeats, typing and REST message sends for loadtest.duration
+ * seconds. Run with {@code gradle loadtest -Dloadtest.clients=5000}, add -Dloadtest.in_process=true to start
+ * the backend inside the harness JVM. Memory per connection is then measured on the shared heap after a GC, so it
+ * covers the server and the harness's clients together. Against a separately started backend, give its
+ * gateway.admin_token as -Dloadtest.admin_token to get the server's heap per connection alone, read from its
+ * /actuator/prometheus without forcing a GC, so garbage from connecting is included. Every connection comes from
+ * the harness's one address, so the in-process backend is started with gateway.handshake_rate and handshake_burst raised
+ * to loadtest.clients, unless they are given as program arguments. A separately started backend needs the same, e.g.
+ * {@code --gateway.handshake_rate=5000 --gateway.handshake_burst=5000}, or its handshake limit refuses all but the first
+ * 30 connections with 429.
+ */
+public class GatewayLoadTest {
+
+	private static final String PASSWORD = "loadtest-password";
+
+	private static final long TICK = 10;
+
+	public static void main(String[] args) throws Exception {
+		String apiUrl = property("api", "http://localhost:8080");
+		String gatewayUrl = property("gateway", "ws://localhost:8080/");
+		int clientCount = Integer.parseInt(property("clients", "1000"));
+		int channelSize = Integer.parseInt(property("channel_size", "100"));
+		int duration = Integer.parseInt(property("duration", "60"));
+		double messageRate = Double.parseDouble(property("message_rate", "10"));
+		double typingRate = Double.parseDouble(property("typing_rate", "50"));
+		int concurrency = Integer.parseInt(property("connect_concurrency", "256"));
+		boolean inProcess = Boolean.parseBoolean(property("in_process", "false"));
+		String adminToken = property("admin_token", "");
+
+		ConfigurableApplicationContext context = inProcess ? SpringApplication.run(Main.class, backendArgs(args, clientCount)) : null;
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		Semaphore permits = new Semaphore(concurrency);
+		LoadTestApi api = new LoadTestApi(apiUrl);
+
+		ConcurrentHashMap<String, Long> pendingMessages = new ConcurrentHashMap<>();
+		LatencyRecorder deliveryLatency = new LatencyRecorder();
+		LatencyRecorder sendLatency = new LatencyRecorder();
+		AtomicLong errors = new AtomicLong();
+		AtomicLong expectedDeliveries = new AtomicLong();
+
+		// Setup: users, then one public channel per group of channel_size users
+		String run = UUID.randomUUID().toString().substring(0, 6);
+		List<String> tokens = runAll(executor, permits, clientCount, i -> api.register("lt" + run + i, PASSWORD));
+		int channelCount = (clientCount + channelSize - 1) / channelSize;
+		List<Long> channels = runAll(executor, permits, channelCount, i -> api.createChannel(tokens.get(i * channelSize), "lt" + run + "c" + i));
+		runAll(executor, permits, clientCount, i -> {
+			if (i % channelSize != 0) api.joinChannel(tokens.get(i), channels.get(i / channelSize));
+			return null;
+		});
+		log("Registered %d users in %d channels", clientCount, channelCount);
+
+		// Connect
+		HttpClient httpClient = HttpClient.newBuilder().executor(executor).build();
+		List<LoadTestClient> clients = new ArrayList<>(clientCount);
+		long heapBefore = usedHeap(inProcess, api, adminToken);
+		long connectStart = System.nanoTime();
+
+		List<CompletableFuture<Long>> hellos = new ArrayList<>(clientCount);
+		for (int i = 0; i < clientCount; i++) {
+			LoadTestClient client = new LoadTestClient(tokens.get(i), channels.get(i / channelSize), pendingMessages, deliveryLatency, errors);
+			clients.add(client);
+
+			permits.acquire();
+			hellos.add(client.connect(httpClient, gatewayUrl).whenComplete((hello, error) -> {
+				permits.release();
+				if (error != null) errors.incrementAndGet();
+			}));
+		}
+
+		int connected = 0;
+		for (CompletableFuture<Long> hello : hellos) {
+			try {
+				hello.get(30, TimeUnit.SECONDS);
+				connected++;
+			} catch (Exception ignored) {
+			}
+		}
+
+		double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+		long heapAfter = usedHeap(inProcess, api, adminToken);
+		log("Connected %d/%d clients in %.2f s (%.0f connections/s)", connected, clientCount, connectSeconds, connected / connectSeconds);
+		double heapPerConnection = (heapAfter - heapBefore) / 1024.0 / Math.max(1, connected);
+		if (inProcess) log("Heap per connection, server and harness clients combined: %.1f KiB", heapPerConnection);
+		else if (!adminToken.isEmpty()) log("Server heap per connection, no GC forced: %.1f KiB", heapPerConnection);
+
+		// Load
+		long end = System.currentTimeMillis() + duration * 1000L;
+		double messageBudget = 0;
+		double typingBudget = 0;
+		AtomicLong sequence = new AtomicLong();
+
+		while (System.currentTimeMillis() < end) {
+			long now = System.currentTimeMillis();
+			messageBudget += messageRate * TICK / 1000;
+			typingBudget += typingRate * TICK / 1000;
+
+			for (LoadTestClient client : clients) client.heartbeatIfDue(now);
+
+			for (; typingBudget >= 1; typingBudget--) {
+				LoadTestClient client = randomClient(clients);
+				executor.execute(client::typing);
+			}
+
+			for (; messageBudget >= 1; messageBudget--) {
+				LoadTestClient client = randomClient(clients);
+				long channelId = client.getChannelId();
+				int members = Math.min(channelSize, clientCount - channels.indexOf(channelId) * channelSize);
+				String nonce = "lt-" + run + "-" + sequence.incrementAndGet();
+
+				expectedDeliveries.addAndGet(members);
+				executor.execute(() -> {
+					long sentAt = System.nanoTime();
+					pendingMessages.put(nonce, sentAt);
+
+					try {
+						api.sendMessage(client.getToken(), channelId, nonce);
+						sendLatency.record(System.nanoTime() - sentAt);
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+				});
+			}
+
+			Thread.sleep(TICK);
+		}
+
+		// Let in-flight dispatches arrive before reporting
+		Thread.sleep(5000);
+
+		log("REST send latency: %s", sendLatency.summary());
+		log("Fan-out latency (POST to MESSAGE_CREATE at each recipient): %s", deliveryLatency.summary());
+		log("Deliveries: %d/%d, errors: %d", deliveryLatency.count(), expectedDeliveries.get(), errors.get());
+
+		clients.forEach(LoadTestClient::close);
+		executor.shutdownNow();
+		if (context != null) context.close();
+		System.exit(0);
+	}
+
+	private static <T> List<T> runAll(ExecutorService executor, Semaphore permits, int count, Task<T> task) throws Exception {
+		Map<Integer, CompletableFuture<T>> futures = new ConcurrentHashMap<>();
+
+		for (int i = 0; i < count; i++) {
+			int index = i;
+			permits.acquire();
+			futures.put(index, CompletableFuture.supplyAsync(() -> {
+				try {
+					return task.run(index);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				} finally {
+					permits.release();
+				}
+			}, executor));
+		}
+
+		List<T> results = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			results.add(futures.get(i).get());
+		}
+		return results;
+	}
+
+	private static LoadTestClient randomClient(List<LoadTestClient> clients) {
+		return clients.get(ThreadLocalRandom.current().nextInt(clients.size()));
+	}
+
+	private static long usedHeap(boolean inProcess, LoadTestApi api, String adminToken) throws IOException, InterruptedException {
+		if (!inProcess) return adminToken.isEmpty() ? 0 : api.serverHeap(adminToken);
+
+		System.gc();
+		Thread.sleep(500);
+
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// All clients share one address, the default handshake limit would admit 30 of them
+	private static String[] backendArgs(String[] args, int clientCount) {
+		List<String> backendArgs = new ArrayList<>(List.of(args));
+
+		for (String key : List.of("--gateway.handshake_rate=", "--gateway.handshake_burst=")) {
+			if (backendArgs.stream().noneMatch(arg -> arg.startsWith(key))) backendArgs.add(key + clientCount);
+		}
+
+		return backendArgs.toArray(String[]::new);
+	}
+
+	private static String property(String name, String defaultValue) {
+		return System.getProperty("loadtest." + name, defaultValue);
+	}
+
+	private static void log(String format, Object... args) {
+		System.out.printf(format + "%n", args);
+	}
+
+	private interface Task<T> {
+		T run(int index) throws Exception;
+	}
+}
@@ -0,0 +1,251 @@
+package su.foxochat.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.config.GatewayConfig;
+import su.foxochat.constant.UserConstant;
+import su.foxochat.dto.api.response.ChannelDTO;
+import su.foxochat.dto.api.response.UserDTO;
+import su.foxochat.dto.gateway.request.IdentifyDTO;
+import su.foxochat.dto.gateway.response.ReadyDTO;
+import su.foxochat.dto.internal.ChannelSummaryDTO;
+import su.foxochat.dto.internal.UserSummaryDTO;
+import su.foxochat.handler.HelloHandler;
+import su.foxochat.handler.structure.AdmissionController;
+import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.EventHandlerRegistry;
+import su.foxochat.handler.structure.GatewayCodec;
+import su.foxochat.handler.structure.HeartbeatWheel;
+import su.foxochat.handler.structure.SessionStore;
+import su.foxochat.handler.structure.SessionTable;
+import su.foxochat.model.User;
+import su.foxochat.service.AuthenticationService;
+import su.foxochat.service.PresenceService;
+import su.foxochat.service.ReadyService;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connects loadtest.sessions stubbed connections through EventHandler and identifies each through HelloHandler, so every
+ * session gets HELLO and a READY dispatch with a ready payload of loadtest.channels_per_session channels, then reports the
+ * heap each one retains once its writer has gone idle. Authentication and the ready payload are stubbed instead of read
+ * from the database, so the figure is the gateway's own per-connection state; container and socket objects come on top
+ * and show up in GatewayLoadTest's figure. Run with {@code gradle idleBenchmark -Dloadtest.sessions=200000}. On JDK 21
+ * with compressed oops an identified idle session in two channels measured about 910 bytes, against about 5.4 KiB while
+ * READY was kept for replay along with its payload objects and JSON.
+ */
+public class IdleSessionBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int sessionCount = Integer.parseInt(System.getProperty("loadtest.sessions", "100000"));
+		int channelsPerSession = Integer.parseInt(System.getProperty("loadtest.channels_per_session", "2"));
+
+		GatewayConfig gatewayConfig = new GatewayConfig();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		SessionTable sessionTable = new SessionTable();
+		SessionStore sessionStore = new SessionStore(gatewayConfig);
+		HeartbeatWheel heartbeatWheel = new HeartbeatWheel();
+		AdmissionController admissionController = new AdmissionController(gatewayConfig, meterRegistry);
+		GatewayCodec gatewayCodec = new GatewayCodec(new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE));
+		PresenceService presenceService = stub(PresenceService.class, (method, arguments) -> null);
+		EventHandler eventHandler = new EventHandler(new EventHandlerRegistry(List.of()), gatewayCodec, presenceService, gatewayConfig, meterRegistry, heartbeatWheel, sessionStore, sessionTable, admissionController);
+
+		AuthenticationService authenticationService = stub(AuthenticationService.class, (method, arguments) -> {
+			User user = new User();
+			user.setId(Long.parseLong((String) arguments[0]));
+			return user;
+		});
+		ReadyService readyService = stub(ReadyService.class, (method, arguments) -> ready((User) arguments[0], channelsPerSession));
+		HelloHandler helloHandler = new HelloHandler(authenticationService, gatewayCodec, presenceService, eventHandler, heartbeatWheel, readyService);
+		List<StubWebSocketSession> connections = new ArrayList<>(sessionCount);
+
+		long heapBefore = usedHeap();
+
+		for (int i = 0; i < sessionCount; i++) {
+			StubWebSocketSession webSocketSession = new StubWebSocketSession(Integer.toString(i, 36));
+			eventHandler.afterConnectionEstablished(webSocketSession);
+
+			IdentifyDTO identify = new IdentifyDTO();
+			identify.setToken(Long.toString(i + 1));
+			helloHandler.handle(webSocketSession, sessionStore, identify);
+			connections.add(webSocketSession);
+		}
+
+		while (sessionStore.getPendingTasks() > 0) Thread.sleep(10);
+
+		long heapActive = usedHeap();
+		Thread.sleep(3000);
+		long heapIdle = usedHeap();
+
+		System.out.printf("Sessions: %d, %d channels each, session table capacity %d%n", sessionStore.size(), channelsPerSession, sessionTable.getCapacity());
+		System.out.printf("Heap per session right after READY: %.0f bytes%n", (heapActive - heapBefore) / (double) sessionCount);
+		System.out.printf("Heap per idle session: %.0f bytes%n", (heapIdle - heapBefore) / (double) sessionCount);
+
+		// HELLO and READY for every session
+		boolean identified = connections.stream().allMatch(connection -> sessionStore.get(connection).isAuthenticated()) && StubWebSocketSession.FRAMES.sum() == 2L * sessionCount;
+
+		admissionController.shutdown();
+		heartbeatWheel.shutdown();
+		sessionStore.shutdown();
+		System.exit(identified && sessionStore.size() == sessionCount ? 0 : 1);
+	}
+
+	// Shaped like what ReadyService builds for a user with no contacts, each channel owned by the user itself
+	private static ReadyDTO ready(User user, int channelCount) {
+		UserSummaryDTO summary = new UserSummaryDTO(user.getId(), "User " + user.getId(), "user" + user.getId(), UserConstant.Status.ONLINE.getStatus(), 0, 0, 0, 1760000000000L, null, null, null, null, null);
+		UserDTO self = new UserDTO(summary);
+		List<ChannelDTO> channels = new ArrayList<>(channelCount);
+
+		for (int channel = 0; channel < channelCount; channel++) {
+			long channelId = (user.getId() + channel) % 1000 + 1;
+			ChannelSummaryDTO channelSummary = new ChannelSummaryDTO(channelId, "Channel " + channelId, "channel" + channelId, 1, 0, user.getId(), 100, 1760000000000L, null, null, null, null, null);
+
+			channels.add(new ChannelDTO(channelSummary, self, null));
+		}
+
+		return new ReadyDTO(self, channels, List.of(), List.of());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, Answer answer) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, arguments) -> {
+			Object result = answer.answer(method, arguments);
+
+			// Defaults for primitive returns like PresenceService.isOnline
+			if (result == null && method.getReturnType() == boolean.class) return false;
+
+			return result;
+		});
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private interface Answer {
+
+		Object answer(Method method, Object[] arguments) throws Exception;
+	}
+
+	private static class StubWebSocketSession implements WebSocketSession {
+
+		private static final LongAdder FRAMES = new LongAdder();
+
+		private static final URI URI = java.net.URI.create("/?encoding=json");
+
+		private final String id;
+
+		private final Map<String, Object> attributes = new ConcurrentHashMap<>(1);
+
+		private StubWebSocketSession(String id) {
+			this.id = id;
+		}
+
+		@Override
+		@NonNull
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public URI getUri() {
+			return URI;
+		}
+
+		@Override
+		@NonNull
+		public HttpHeaders getHandshakeHeaders() {
+			return HttpHeaders.EMPTY;
+		}
+
+		@Override
+		@NonNull
+		public Map<String, Object> getAttributes() {
+			return attributes;
+		}
+
+		@Override
+		public Principal getPrincipal() {
+			return null;
+		}
+
+		@Override
+		public InetSocketAddress getLocalAddress() {
+			return null;
+		}
+
+		@Override
+		public InetSocketAddress getRemoteAddress() {
+			return null;
+		}
+
+		@Override
+		public String getAcceptedProtocol() {
+			return null;
+		}
+
+		@Override
+		public void setTextMessageSizeLimit(int messageSizeLimit) {
+		}
+
+		@Override
+		public int getTextMessageSizeLimit() {
+			return 0;
+		}
+
+		@Override
+		public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+		}
+
+		@Override
+		public int getBinaryMessageSizeLimit() {
+			return 0;
+		}
+
+		@Override
+		@NonNull
+		public List<WebSocketExtension> getExtensions() {
+			return List.of();
+		}
+
+		@Override
+		public void sendMessage(@NonNull WebSocketMessage<?> message) {
+			FRAMES.increment();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void close(@NonNull CloseStatus status) {
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package su.foxochat.loadtest;
+
+import java.util.Arrays;
+
+public class LatencyRecorder {
+
+	private long[] values = new long[1024];
+
+	private int size;
+
+	public synchronized void record(long nanos) {
+		if (size == values.length) values = Arrays.copyOf(values, size * 2);
+
+		values[size++] = nanos;
+	}
+
+	public synchronized int count() {
+		return size;
+	}
+
+	public synchronized String summary() {
+		if (size == 0) return "no samples";
+
+		long[] sorted = Arrays.copyOf(values, size);
+		Arrays.sort(sorted);
+
+		return String.format("p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms (%d samples)",
+				millis(sorted, 0.5), millis(sorted, 0.99), millis(sorted, 0.999), sorted[size - 1] / 1e6, size);
+	}
+
+	private static double millis(long[] sorted, double quantile) {
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+}
@@ -0,0 +1,86 @@
+package su.foxochat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+public class LoadTestApi {
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(10))
+			.build();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final String url;
+
+	public LoadTestApi(String url) {
+		this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+	}
+
+	public String register(String username, String password) throws IOException, InterruptedException {
+		JsonNode response = send("POST", "/auth/register", null, Map.of("username", username, "email", username + "@loadtest.foxochat.su", "password", password));
+
+		return response.get("access_token").asText();
+	}
+
+	public long createChannel(String token, String name) throws IOException, InterruptedException {
+		JsonNode response = send("POST", "/channels/", token, Map.of("display_name", name, "name", name, "type", 3, "public", true));
+
+		return response.get("id").asLong();
+	}
+
+	public void joinChannel(String token, long channelId) throws IOException, InterruptedException {
+		send("PUT", "/channels/" + channelId + "/members/@me", token, null);
+	}
+
+	public void sendMessage(String token, long channelId, String content) throws IOException, InterruptedException {
+		send("POST", "/channels/" + channelId + "/messages", token, Map.of("content", content));
+	}
+
+	// Sum of the heap pools in the server's /actuator/prometheus scrape, which needs gateway.admin_token
+	public long serverHeap(String adminToken) throws IOException, InterruptedException {
+		long used = 0;
+
+		for (String line : new String(request("GET", "/actuator/prometheus", adminToken, null), StandardCharsets.UTF_8).split("\n")) {
+			if (line.startsWith("jvm_memory_used_bytes{") && line.contains("area=\"heap\"")) {
+				used += (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+			}
+		}
+
+		return used;
+	}
+
+	private JsonNode send(String method, String path, String token, Object body) throws IOException, InterruptedException {
+		byte[] response = request(method, path, token, body);
+
+		return response.length > 0 ? objectMapper.readTree(response) : null;
+	}
+
+	private byte[] request(String method, String path, String token, Object body) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.method(method, body != null
+						? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+						: HttpRequest.BodyPublishers.noBody());
+
+		if (token != null) request.header("Authorization", "Bearer " + token);
+
+		HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+		if (response.statusCode() >= 300) {
+			throw new IOException(method + " " + path + " failed with " + response.statusCode() + ": " + new String(response.body()));
+		}
+
+		return response.body();
+	}
+}
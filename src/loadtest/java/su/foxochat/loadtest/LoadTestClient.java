@@ -0,0 +1,147 @@
+package su.foxochat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadTestClient implements WebSocket.Listener {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final String token;
+
+	private final long channelId;
+
+	private final ConcurrentHashMap<String, Long> pendingMessages;
+
+	private final LatencyRecorder deliveryLatency;
+
+	private final AtomicLong errors;
+
+	private final CompletableFuture<Long> hello = new CompletableFuture<>();
+
+	private final StringBuilder partial = new StringBuilder();
+
+	private volatile WebSocket webSocket;
+
+	private volatile long heartbeatInterval;
+
+	private volatile long nextHeartbeat;
+
+	public LoadTestClient(String token, long channelId, ConcurrentHashMap<String, Long> pendingMessages, LatencyRecorder deliveryLatency, AtomicLong errors) {
+		this.token = token;
+		this.channelId = channelId;
+		this.pendingMessages = pendingMessages;
+		this.deliveryLatency = deliveryLatency;
+		this.errors = errors;
+	}
+
+	public CompletableFuture<Long> connect(HttpClient httpClient, String url) {
+		httpClient.newWebSocketBuilder()
+				.buildAsync(URI.create(url), this)
+				.whenComplete((socket, error) -> {
+					if (error != null) hello.completeExceptionally(error);
+				});
+
+		return hello;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public long getChannelId() {
+		return channelId;
+	}
+
+	public void heartbeatIfDue(long now) {
+		if (heartbeatInterval == 0 || now < nextHeartbeat) return;
+
+		nextHeartbeat = now + heartbeatInterval;
+		send("{\"op\":3,\"d\":null}");
+	}
+
+	public void typing() {
+		send("{\"op\":0,\"d\":{\"channel_id\":" + channelId + "}}");
+	}
+
+	public void close() {
+		if (webSocket != null) webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket) {
+		this.webSocket = webSocket;
+		send("{\"op\":1,\"d\":{\"token\":\"" + token + "\"}}");
+		webSocket.request(1);
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+		partial.append(data);
+
+		if (last) {
+			String frame = partial.toString();
+			partial.setLength(0);
+
+			try {
+				handle(OBJECT_MAPPER.readTree(frame));
+			} catch (Exception e) {
+				errors.incrementAndGet();
+			}
+		}
+
+		webSocket.request(1);
+		return null;
+	}
+
+	@Override
+	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+		hello.completeExceptionally(new IllegalStateException("Closed with " + statusCode + " " + reason));
+		return null;
+	}
+
+	@Override
+	public void onError(WebSocket webSocket, Throwable error) {
+		hello.completeExceptionally(error);
+		errors.incrementAndGet();
+	}
+
+	private void handle(JsonNode frame) {
+		// Batched sessions receive arrays of events
+		if (frame.isArray()) {
+			frame.forEach(this::handle);
+			return;
+		}
+
+		int opcode = frame.path("op").asInt(-1);
+
+		if (opcode == 2) {
+			heartbeatInterval = frame.path("d").path("heartbeat_interval").asLong(30000);
+			nextHeartbeat = System.currentTimeMillis() + heartbeatInterval;
+			hello.complete(System.nanoTime());
+		} else if (opcode == 0 && "MESSAGE_CREATE".equals(frame.path("t").asText())) {
+			Long sentAt = pendingMessages.get(frame.path("d").path("content").asText());
+
+			if (sentAt != null) deliveryLatency.record(System.nanoTime() - sentAt);
+		}
+	}
+
+	private void send(String payload) {
+		WebSocket socket = webSocket;
+
+		if (socket == null) return;
+
+		// The JDK client rejects overlapping sends, so frames from this client go out one at a time
+		synchronized (this) {
+			socket.sendText(payload, true).join();
+		}
+	}
+}
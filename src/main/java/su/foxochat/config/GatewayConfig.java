@@ -0,0 +1,57 @@
+package su.foxochat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties("gateway")
+@Getter
+@Setter
+public class GatewayConfig {
+
+	private int outboundQueueMessages = 1024;
+
+	private long outboundQueueBytes = 4 * 1024 * 1024;
+
+	private boolean compressionEnabled = true;
+
+	private int compressionLevel = 6;
+
+	private boolean compressionContextTakeover = true;
+
+	private int replayBufferSize = 256;
+
+	private long resumeTimeout = 60000;
+
+	private long resumeWaitTimeout = 1000;
+
+	private String clusterBus = "none";
+
+	private String transport = "spring";
+
+	private long presenceFlushInterval = 5000;
+
+	private long batchWindow = 10;
+
+	private int sessionShards = 0;
+
+	private double handshakeRate = 5;
+
+	private int handshakeBurst = 30;
+
+	private int identifyConcurrency = 16;
+
+	private long identifyTimeout = 1000;
+
+	private long admissionRetryAfter = 5000;
+
+	private long drainDuration = 20000;
+
+	private long drainWaveInterval = 500;
+
+	private long drainFlushTimeout = 5000;
+
+	private String adminToken = "";
+}
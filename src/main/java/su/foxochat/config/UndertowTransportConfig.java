@@ -0,0 +1,23 @@
+package su.foxochat.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Configuration;
+import su.foxochat.handler.structure.UndertowGatewayTransport;
+
+@Configuration
+@ConditionalOnProperty(name = "gateway.transport", havingValue = "undertow")
+public class UndertowTransportConfig implements WebServerFactoryCustomizer<UndertowServletWebServerFactory> {
+
+	private final UndertowGatewayTransport undertowGatewayTransport;
+
+	public UndertowTransportConfig(UndertowGatewayTransport undertowGatewayTransport) {
+		this.undertowGatewayTransport = undertowGatewayTransport;
+	}
+
+	@Override
+	public void customize(UndertowServletWebServerFactory factory) {
+		factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.addInitialHandlerChainWrapper(undertowGatewayTransport::wrap));
+	}
+}
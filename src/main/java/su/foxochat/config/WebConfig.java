@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import su.foxochat.interceptor.AdminInterceptor;
 import su.foxochat.interceptor.AuthenticationInterceptor;
 import su.foxochat.interceptor.ChannelInterceptor;
 import su.foxochat.interceptor.MemberInterceptor;
@@ -17,10 +18,13 @@ public class WebConfig implements WebMvcConfigurer {
 
 	private final MemberInterceptor memberInterceptor;
 
-	public WebConfig(AuthenticationInterceptor authenticationInterceptor, ChannelInterceptor channelInterceptor, MemberInterceptor memberInterceptor) {
+	private final AdminInterceptor adminInterceptor;
+
+	public WebConfig(AuthenticationInterceptor authenticationInterceptor, ChannelInterceptor channelInterceptor, MemberInterceptor memberInterceptor, AdminInterceptor adminInterceptor) {
 		this.authenticationInterceptor = authenticationInterceptor;
 		this.channelInterceptor = channelInterceptor;
 		this.memberInterceptor = memberInterceptor;
+		this.adminInterceptor = adminInterceptor;
 	}
 
 	@Override
@@ -33,8 +37,10 @@ public class WebConfig implements WebMvcConfigurer {
 
 	@Override
 	public void addInterceptors(InterceptorRegistry registry) {
-		registry.addInterceptor(authenticationInterceptor).excludePathPatterns("/info", "/auth/register", "/auth/login", "/auth/reset-password", "/auth/reset-password/**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health");
-		registry.addInterceptor(channelInterceptor).excludePathPatterns("/info", "/auth/**", "/users/**", "/channels/", "/channels/@**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health");
-		registry.addInterceptor(memberInterceptor).excludePathPatterns("/info", "/auth/**", "/users/**", "/channels/", "/channels/@**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health");
+		registry.addInterceptor(authenticationInterceptor).excludePathPatterns("/info", "/auth/register", "/auth/login", "/auth/reset-password", "/auth/reset-password/**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health", "/actuator/prometheus", "/admin/**");
+		registry.addInterceptor(channelInterceptor).excludePathPatterns("/info", "/auth/**", "/users/**", "/channels/", "/channels/@**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health", "/actuator/prometheus", "/admin/**");
+		registry.addInterceptor(memberInterceptor).excludePathPatterns("/info", "/auth/**", "/users/**", "/channels/", "/channels/@**", "/swagger-ui/**", "/v3/api-docs/**", "/actuator/health", "/actuator/prometheus", "/admin/**");
+		// Metrics expose session counts and traffic, scraped with the same bearer token as the admin endpoints
+		registry.addInterceptor(adminInterceptor).addPathPatterns("/admin/**", "/actuator/prometheus");
 	}
 }
@@ -6,6 +6,7 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.interceptor.GatewayHandshakeInterceptor;
 
 @Configuration
 @EnableWebSocket
@@ -13,13 +14,17 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
 	private final EventHandler eventHandler;
 
-	public WebSocketConfig(EventHandler eventHandler) {
+	private final GatewayHandshakeInterceptor gatewayHandshakeInterceptor;
+
+	public WebSocketConfig(EventHandler eventHandler, GatewayHandshakeInterceptor gatewayHandshakeInterceptor) {
 		this.eventHandler = eventHandler;
+		this.gatewayHandshakeInterceptor = gatewayHandshakeInterceptor;
 	}
 
 	@Override
 	public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
 		registry.addHandler(eventHandler, "/")
+				.addInterceptors(gatewayHandshakeInterceptor)
 				.setAllowedOrigins("*");
 	}
 }
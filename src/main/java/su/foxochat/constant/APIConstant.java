@@ -9,4 +9,6 @@ public class APIConstant {
 	public static final String CHANNELS = "/channels";
 
 	public static final String COMMON = "/";
+
+	public static final String ADMIN = "/admin";
 }
@@ -9,4 +9,6 @@ public class AttributeConstant {
 	public static final String CHANNEL = "channel";
 
 	public static final String ACCESS_TOKEN = "access_token";
+
+	public static final String SESSION = "session";
 }
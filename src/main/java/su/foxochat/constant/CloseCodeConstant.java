@@ -7,4 +7,14 @@ public class CloseCodeConstant {
 	public static final CloseStatus UNAUTHORIZED = new CloseStatus(4001, "Unauthorized");
 
 	public static final CloseStatus HEARTBEAT_TIMEOUT = new CloseStatus(4002, "Heartbeat timeout");
+
+	public static final CloseStatus SLOW_CONSUMER = new CloseStatus(4003, "Slow consumer");
+
+	public static final CloseStatus RATE_LIMITED = new CloseStatus(4004, "Rate limited");
+
+	public static final CloseStatus SESSION_TERMINATED = new CloseStatus(4005, "Session terminated");
+
+	public static CloseStatus rateLimited(long retryAfter) {
+		return RATE_LIMITED.withReason("Rate limited; retry_after=" + retryAfter);
+	}
 }
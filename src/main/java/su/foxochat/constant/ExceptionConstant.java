@@ -12,6 +12,8 @@ public class ExceptionConstant {
 
 	private static final int OTP_ERROR = 500;
 
+	private static final int GATEWAY_ERROR = 600;
+
 	private static final int CDN_ERROR = 700;
 
 	private static final int API_ERROR = 800;
@@ -44,7 +46,10 @@ public class ExceptionConstant {
 		USER_UNAUTHORIZED("You need to authorize first"),
 		ROUTE_NOT_FOUND("Route not found"),
 		USER_CONTACT_ALREADY_EXIST("Contact already exist"),
-		USER_CONTACT_NOT_FOUND("Contact not found");
+		USER_CONTACT_NOT_FOUND("Contact not found"),
+		GATEWAY_SESSION_NOT_FOUND("Unknown gateway session"),
+		GATEWAY_ADMIN_UNAUTHORIZED("Invalid admin token"),
+		GATEWAY_UNKNOWN_METHOD("Unknown request method");
 
 		private final String message;
 
@@ -111,6 +116,16 @@ public class ExceptionConstant {
 		}
 	}
 
+	public enum Gateway {
+		SESSION_NOT_FOUND,
+		ADMIN_UNAUTHORIZED,
+		UNKNOWN_METHOD;
+
+		public int getValue() {
+			return GATEWAY_ERROR + this.ordinal();
+		}
+	}
+
 	public enum CDN {
 		UPLOAD_FAILED,
 		INVALID_FILE_FORMAT;
@@ -1,35 +1,128 @@
 package su.foxochat.constant;
 
+import lombok.Getter;
+
 public class GatewayConstant {
 
 	public static final int HEARTBEAT_INTERVAL = 30000;
 
-	public static final int HEARTBEAT_TIMEOUT = 3;
+	public static final int HEARTBEAT_TIMEOUT = 10000;
+
+	public static final int TYPING_TIMEOUT = 8000;
+
+	public static final int MAX_SUBSCRIPTIONS = 100;
 
 	public enum Event {
-		MESSAGE_CREATE("MESSAGE_CREATE"),
-		MESSAGE_UPDATE("MESSAGE_UPDATE"),
-		MESSAGE_DELETE("MESSAGE_DELETE"),
-		CHANNEL_CREATE("CHANNEL_CREATE"),
-		CHANNEL_UPDATE("CHANNEL_UPDATE"),
-		CHANNEL_DELETE("CHANNEL_DELETE"),
-		MEMBER_ADD("MEMBER_ADD"),
-		MEMBER_REMOVE("MEMBER_REMOVE"),
-		USER_STATUS_UPDATE("USER_STATUS_UPDATE"),
-		USER_UPDATE("USER_UPDATE"),
-		CONTACT_ADD("CONTACT_ADD"),
-		CONTACT_DELETE("CONTACT_DELETE"),
-		TYPING_START("TYPING_START");
+		MESSAGE_CREATE("MESSAGE_CREATE", Intent.MESSAGES),
+		MESSAGE_UPDATE("MESSAGE_UPDATE", Intent.MESSAGES),
+		MESSAGE_DELETE("MESSAGE_DELETE", Intent.MESSAGES),
+		CHANNEL_CREATE("CHANNEL_CREATE", Intent.CHANNELS),
+		CHANNEL_UPDATE("CHANNEL_UPDATE", Intent.CHANNELS),
+		CHANNEL_DELETE("CHANNEL_DELETE", Intent.CHANNELS),
+		MEMBER_ADD("MEMBER_ADD", Intent.MEMBERS),
+		MEMBER_REMOVE("MEMBER_REMOVE", Intent.MEMBERS),
+		USER_STATUS_UPDATE("USER_STATUS_UPDATE", Intent.PRESENCES),
+		USER_UPDATE("USER_UPDATE", Intent.USERS),
+		CONTACT_ADD("CONTACT_ADD", Intent.CONTACTS),
+		CONTACT_DELETE("CONTACT_DELETE", Intent.CONTACTS),
+		TYPING_START("TYPING_START", Intent.TYPING),
+		TYPING_STOP("TYPING_STOP", Intent.TYPING),
+		READY("READY", null),
+		RESUMED("RESUMED", null);
+
+		private final String name;
+
+		private final Intent intent;
+
+		Event(String name, Intent intent) {
+			this.name = name;
+			this.intent = intent;
+		}
+
+		public String getValue() {
+			return name;
+		}
+
+		// 0 for events every session gets, like READY or ones this node does not know
+		public static long getIntentBit(String value) {
+			for (Event event : values()) {
+				if (event.name.equals(value)) return event.intent != null ? event.intent.getBit() : 0;
+			}
+
+			return 0;
+		}
+	}
+
+	@Getter
+	public enum Intent {
+		MESSAGES(1),
+		CHANNELS(1 << 1),
+		MEMBERS(1 << 2),
+		PRESENCES(1 << 3),
+		USERS(1 << 4),
+		CONTACTS(1 << 5),
+		TYPING(1 << 6);
+
+		// Sessions that do not send intents get everything
+		public static final long ALL = (1 << 7) - 1;
+
+		private final long bit;
+
+		Intent(long bit) {
+			this.bit = bit;
+		}
+	}
+
+	public enum Encoding {
+		JSON("json"),
+		CBOR("cbor");
+
+		private final String name;
+
+		Encoding(String name) {
+			this.name = name;
+		}
+
+		public String getValue() {
+			return name;
+		}
+
+		public static Encoding of(String value) {
+			for (Encoding encoding : values()) {
+				if (encoding.name.equals(value)) return encoding;
+			}
+
+			return JSON;
+		}
+	}
+
+	public enum Compression {
+		NONE("none"),
+		ZLIB_STREAM("zlib-stream");
 
 		private final String name;
 
-		Event(String name) {
+		Compression(String name) {
 			this.name = name;
 		}
 
 		public String getValue() {
 			return name;
 		}
+
+		public static Compression of(String value) {
+			for (Compression compression : values()) {
+				if (compression.name.equals(value)) return compression;
+			}
+
+			return NONE;
+		}
+	}
+
+	public enum SessionState {
+		UNIDENTIFIED, // connected, no IDENTIFY yet
+		READY,
+		DETACHED, // disconnected, kept until resumed or expired
 	}
 
 	public enum Opcode {
@@ -38,5 +131,36 @@ public class GatewayConstant {
 		HELLO, // 2
 		HEARTBEAT, // 3
 		HEARTBEAT_ACK, // 4
+		RESUME, // 5
+		INVALID_SESSION, // 6
+		SUBSCRIBE, // 7
+		RECONNECT, // 8
+		REQUEST, // 9
+		RESPONSE, // 10
+	}
+
+	public enum Method {
+		MESSAGE_CREATE,
+		MESSAGE_UPDATE,
+		MESSAGE_DELETE,
+		MESSAGE_GET,
+		MESSAGES_GET;
+
+		public static Method of(String value) {
+			for (Method method : values()) {
+				if (method.name().equals(value)) return method;
+			}
+
+			return null;
+		}
+	}
+
+	public enum BusAction {
+		DISPATCH,
+		DISPATCH_SUBSCRIBERS,
+		CHANNEL_LAZY,
+		CHANNEL_MEMBER_ADD,
+		CHANNEL_MEMBER_REMOVE,
+		CHANNEL_REMOVE,
 	}
 }
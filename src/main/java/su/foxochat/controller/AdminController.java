@@ -0,0 +1,47 @@
+package su.foxochat.controller;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import su.foxochat.constant.APIConstant;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.api.response.GatewaySessionsDTO;
+import su.foxochat.dto.api.response.OkDTO;
+import su.foxochat.service.GatewayAdminService;
+
+@Slf4j
+@Hidden
+@RestController
+@RequestMapping(value = APIConstant.ADMIN, produces = "application/json")
+public class AdminController {
+
+	private final GatewayAdminService gatewayAdminService;
+
+	public AdminController(GatewayAdminService gatewayAdminService) {
+		this.gatewayAdminService = gatewayAdminService;
+	}
+
+	@GetMapping("/gateway/sessions")
+	public GatewaySessionsDTO getSessions(@RequestParam(value = "user_id", required = false) Long userId, @RequestParam(required = false) GatewayConstant.SessionState state, @RequestParam(defaultValue = "100") int limit) {
+		return gatewayAdminService.getSessions(userId, state, limit);
+	}
+
+	@DeleteMapping("/gateway/sessions/{id}")
+	public OkDTO terminateSession(@PathVariable String id) throws Exception {
+		gatewayAdminService.terminateSession(id);
+
+		return new OkDTO(true);
+	}
+
+	@DeleteMapping("/gateway/users/{userId}/sessions")
+	public OkDTO terminateUserSessions(@PathVariable long userId) throws Exception {
+		gatewayAdminService.terminateUserSessions(userId);
+
+		return new OkDTO(true);
+	}
+}
@@ -1,5 +1,6 @@
 package su.foxochat.controller;
 
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
 import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -19,8 +20,11 @@ public class CommonController {
 
 	private final APIConfig apiConfig;
 
-	public CommonController(APIConfig apiConfig) {
+	private final PrometheusMeterRegistry meterRegistry;
+
+	public CommonController(APIConfig apiConfig, PrometheusMeterRegistry meterRegistry) {
 		this.apiConfig = apiConfig;
+		this.meterRegistry = meterRegistry;
 	}
 
 	@Operation(summary = "Get info")
@@ -38,4 +42,10 @@ public class CommonController {
 	public String health() {
 		return "{\"status\":\"UP\"}";
 	}
+
+	@Hidden
+	@GetMapping(value = "/actuator/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+	public String prometheus() {
+		return meterRegistry.scrape();
+	}
 }
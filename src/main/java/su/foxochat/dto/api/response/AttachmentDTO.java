@@ -3,6 +3,7 @@ package su.foxochat.dto.api.response;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
+import su.foxochat.dto.internal.AttachmentSummaryDTO;
 import su.foxochat.model.Attachment;
 
 @Getter
@@ -27,4 +28,12 @@ public class AttachmentDTO {
 		this.contentType = attachment.getContentType();
 		this.flags = attachment.getFlags();
 	}
+
+	public AttachmentDTO(AttachmentSummaryDTO attachment) {
+		this.id = attachment.getId();
+		this.uuid = attachment.getUuid();
+		this.filename = attachment.getFilename();
+		this.contentType = attachment.getContentType();
+		this.flags = attachment.getFlags();
+	}
 }
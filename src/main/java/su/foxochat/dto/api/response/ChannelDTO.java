@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
+import su.foxochat.dto.internal.ChannelSummaryDTO;
 import su.foxochat.model.Channel;
 import su.foxochat.model.Message;
 
@@ -51,4 +52,19 @@ public class ChannelDTO {
 		this.owner = new UserDTO(channel.getOwner(), null, null, false, false, false);
 		this.createdAt = channel.getCreatedAt();
 	}
+
+	public ChannelDTO(ChannelSummaryDTO channel, UserDTO owner, MessageDTO lastMessage) {
+		this.id = channel.getId();
+		this.displayName = channel.getDisplayName();
+		this.name = channel.getName();
+		if (channel.getIcon() != null) {
+			this.icon = new AttachmentDTO(channel.getIcon());
+		}
+		this.type = channel.getType();
+		this.flags = channel.getFlags();
+		this.memberCount = (int) channel.getMemberCount();
+		this.lastMessage = lastMessage;
+		this.owner = owner;
+		this.createdAt = channel.getCreatedAt();
+	}
 }
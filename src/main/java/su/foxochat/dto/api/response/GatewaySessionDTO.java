@@ -0,0 +1,62 @@
+package su.foxochat.dto.api.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.model.Session;
+
+import java.net.InetSocketAddress;
+
+@Getter
+@Setter
+@Schema(name = "GatewaySession")
+public class GatewaySessionDTO {
+
+	private String id;
+
+	private long userId;
+
+	private GatewayConstant.SessionState state;
+
+	private String encoding;
+
+	private String remoteAddress;
+
+	private long connectedAt;
+
+	private long lastHeartbeat;
+
+	private long detachedAt;
+
+	private int sequence;
+
+	private int queueDepth;
+
+	private long queueBytes;
+
+	private int channels;
+
+	private int subscriptions;
+
+	private long intents;
+
+	public GatewaySessionDTO(Session session) {
+		InetSocketAddress remoteAddress = session.isAttached() ? session.getWebSocketSession().getRemoteAddress() : null;
+
+		this.id = session.getId();
+		this.userId = session.getUserId();
+		this.state = session.getState();
+		this.encoding = session.getEncoding().getValue();
+		this.remoteAddress = remoteAddress != null ? remoteAddress.toString() : null;
+		this.connectedAt = session.getConnectedAt();
+		this.lastHeartbeat = session.getLastPingTimestamp();
+		this.detachedAt = session.isAttached() ? 0 : session.getDetachedAt();
+		this.sequence = session.getSequence();
+		this.queueDepth = session.getOutboundQueue().size();
+		this.queueBytes = session.getOutboundQueue().getQueuedBytes();
+		this.channels = session.getChannels().size();
+		this.subscriptions = session.getSubscriptions().size();
+		this.intents = session.getIntents();
+	}
+}
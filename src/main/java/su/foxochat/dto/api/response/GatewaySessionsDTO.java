@@ -0,0 +1,30 @@
+package su.foxochat.dto.api.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Schema(name = "GatewaySessions")
+public class GatewaySessionsDTO {
+
+	private long total;
+
+	private Map<GatewayConstant.SessionState, Long> byState;
+
+	private Map<Long, Long> byUser;
+
+	private List<GatewaySessionDTO> sessions;
+
+	public GatewaySessionsDTO(long total, Map<GatewayConstant.SessionState, Long> byState, Map<Long, Long> byUser, List<GatewaySessionDTO> sessions) {
+		this.total = total;
+		this.byState = byState;
+		this.byUser = byUser;
+		this.sessions = sessions;
+	}
+}
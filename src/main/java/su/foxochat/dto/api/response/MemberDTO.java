@@ -29,5 +29,12 @@ public class MemberDTO {
 		this.permissions = member.getPermissions();
 		this.joinedAt = member.getJoinedAt();
 	}
+
+	public MemberDTO(long id, UserDTO user, long permissions, long joinedAt) {
+		this.id = id;
+		this.user = user;
+		this.permissions = permissions;
+		this.joinedAt = joinedAt;
+	}
 }
 
@@ -3,6 +3,7 @@ package su.foxochat.dto.api.response;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
+import su.foxochat.dto.internal.MessageSummaryDTO;
 import su.foxochat.model.Message;
 
 import java.util.ArrayList;
@@ -37,4 +38,12 @@ public class MessageDTO {
 		else this.attachments = new ArrayList<>();
 		this.createdAt = message.getTimestamp();
 	}
+
+	public MessageDTO(MessageSummaryDTO message, MemberDTO author, List<AttachmentDTO> attachments) {
+		this.id = message.getId();
+		this.content = message.getContent();
+		this.author = author;
+		this.attachments = attachments;
+		this.createdAt = message.getTimestamp();
+	}
 }
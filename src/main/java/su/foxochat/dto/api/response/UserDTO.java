@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
+import su.foxochat.dto.internal.UserSummaryDTO;
 import su.foxochat.model.User;
 
 import java.util.List;
@@ -65,4 +66,18 @@ public class UserDTO {
 		this.type = user.getType();
 		this.createdAt = user.getCreatedAt();
 	}
+
+	public UserDTO(UserSummaryDTO user) {
+		this.id = user.getId();
+		if (user.getAvatar() != null) {
+			this.avatar = new AttachmentDTO(user.getAvatar());
+		}
+		this.displayName = user.getDisplayName();
+		this.username = user.getUsername();
+		this.status = user.getStatus();
+		this.statusUpdatedAt = user.getStatusUpdatedAt();
+		this.flags = user.getFlags();
+		this.type = user.getType();
+		this.createdAt = user.getCreatedAt();
+	}
 }
@@ -0,0 +1,13 @@
+package su.foxochat.dto.gateway.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class IdentifyDTO {
+
+	private String token;
+
+	private Long intents;
+}
@@ -0,0 +1,32 @@
+package su.foxochat.dto.gateway.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.ValidationConstant;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RequestDTO {
+
+	// Echoed back in the RESPONSE so clients can match it to the request
+	private String nonce;
+
+	private String method;
+
+	private long channelId;
+
+	private long messageId;
+
+	private long before;
+
+	private int limit;
+
+	@Size(max = ValidationConstant.Lengths.MESSAGE_CONTENT, message = ValidationConstant.Messages.MESSAGE_WRONG_LENGTH)
+	private String content;
+
+	@Size(max = ValidationConstant.Lengths.ATTACHMENTS_MAX, message = ValidationConstant.Messages.ATTACHMENTS_WRONG_SIZE)
+	private List<Long> attachments;
+}
@@ -0,0 +1,15 @@
+package su.foxochat.dto.gateway.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ResumeDTO {
+
+	private String token;
+
+	private String sessionId;
+
+	private int seq = -1;
+}
@@ -0,0 +1,13 @@
+package su.foxochat.dto.gateway.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SubscribeDTO {
+
+	private List<Long> channelIds;
+}
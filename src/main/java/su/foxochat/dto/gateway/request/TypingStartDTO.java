@@ -0,0 +1,11 @@
+package su.foxochat.dto.gateway.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TypingStartDTO {
+
+	private long channelId;
+}
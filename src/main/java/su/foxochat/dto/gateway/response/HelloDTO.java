@@ -12,10 +12,11 @@ public class HelloDTO {
 
 	private int op;
 
-	private Map<String, Integer> d;
+	private Map<String, Object> d;
 
-	public HelloDTO() {
+	public HelloDTO(String sessionId) {
 		this.op = GatewayConstant.Opcode.HELLO.ordinal();
-		this.d = Map.of("heartbeat_interval", GatewayConstant.HEARTBEAT_INTERVAL);
+		this.d = Map.of("heartbeat_interval", GatewayConstant.HEARTBEAT_INTERVAL, "session_id", sessionId);
 	}
 }
+
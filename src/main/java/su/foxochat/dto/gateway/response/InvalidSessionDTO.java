@@ -0,0 +1,16 @@
+package su.foxochat.dto.gateway.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+
+@Getter
+@Setter
+public class InvalidSessionDTO {
+
+	private int op;
+
+	public InvalidSessionDTO() {
+		this.op = GatewayConstant.Opcode.INVALID_SESSION.ordinal();
+	}
+}
@@ -0,0 +1,29 @@
+package su.foxochat.dto.gateway.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.dto.api.response.ChannelDTO;
+import su.foxochat.dto.api.response.UserDTO;
+import su.foxochat.dto.gateway.StatusDTO;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ReadyDTO {
+
+	private UserDTO user;
+
+	private List<ChannelDTO> channels;
+
+	private List<UserDTO> contacts;
+
+	private List<StatusDTO> presences;
+
+	public ReadyDTO(UserDTO user, List<ChannelDTO> channels, List<UserDTO> contacts, List<StatusDTO> presences) {
+		this.user = user;
+		this.channels = channels;
+		this.contacts = contacts;
+		this.presences = presences;
+	}
+}
@@ -0,0 +1,16 @@
+package su.foxochat.dto.gateway.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+
+@Getter
+@Setter
+public class ReconnectDTO {
+
+	private int op;
+
+	public ReconnectDTO() {
+		this.op = GatewayConstant.Opcode.RECONNECT.ordinal();
+	}
+}
@@ -0,0 +1,26 @@
+package su.foxochat.dto.gateway.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+
+import java.util.Map;
+
+@Getter
+@Setter
+public class ResponseDTO {
+
+	private int op;
+
+	private Map<String, Object> d;
+
+	public ResponseDTO(String nonce, Object data) {
+		this.op = GatewayConstant.Opcode.RESPONSE.ordinal();
+		this.d = Map.of("nonce", nonce, "ok", true, "data", data);
+	}
+
+	public ResponseDTO(String nonce, int code, String message) {
+		this.op = GatewayConstant.Opcode.RESPONSE.ordinal();
+		this.d = Map.of("nonce", nonce, "ok", false, "code", code, "message", message);
+	}
+}
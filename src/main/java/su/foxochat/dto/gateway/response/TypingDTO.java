@@ -0,0 +1,19 @@
+package su.foxochat.dto.gateway.response;
+
+import lombok.Getter;
+
+@Getter
+public class TypingDTO {
+
+	private final long channelId;
+
+	private final long userId;
+
+	private final long timestamp;
+
+	public TypingDTO(long channelId, long userId, long timestamp) {
+		this.channelId = channelId;
+		this.userId = userId;
+		this.timestamp = timestamp;
+	}
+}
@@ -0,0 +1,29 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+
+@Getter
+public class AttachmentSummaryDTO {
+
+	// The user, channel or message the attachment belongs to
+	private final long ownerId;
+
+	private final long id;
+
+	private final String uuid;
+
+	private final String filename;
+
+	private final String contentType;
+
+	private final long flags;
+
+	public AttachmentSummaryDTO(long ownerId, long id, String uuid, String filename, String contentType, long flags) {
+		this.ownerId = ownerId;
+		this.id = id;
+		this.uuid = uuid;
+		this.filename = filename;
+		this.contentType = contentType;
+		this.flags = flags;
+	}
+}
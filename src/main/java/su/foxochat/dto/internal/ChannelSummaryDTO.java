@@ -0,0 +1,42 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+import su.foxochat.constant.ChannelConstant;
+
+@Getter
+public class ChannelSummaryDTO {
+
+	private final long id;
+
+	private final String displayName;
+
+	private final String name;
+
+	private final int type;
+
+	private final long flags;
+
+	private final long ownerId;
+
+	private final long memberCount;
+
+	private final long createdAt;
+
+	private final AttachmentSummaryDTO icon;
+
+	public ChannelSummaryDTO(long id, String displayName, String name, int type, long flags, long ownerId, long memberCount, long createdAt, Long iconId, String iconUuid, String iconFilename, String iconContentType, Long iconFlags) {
+		this.id = id;
+		this.displayName = displayName;
+		this.name = name;
+		this.type = type;
+		this.flags = flags;
+		this.ownerId = ownerId;
+		this.memberCount = memberCount;
+		this.createdAt = createdAt;
+		this.icon = iconId != null ? new AttachmentSummaryDTO(id, iconId, iconUuid, iconFilename, iconContentType, iconFlags) : null;
+	}
+
+	public boolean hasFlag(ChannelConstant.Flags flag) {
+		return (this.flags & flag.getBit()) != 0;
+	}
+}
@@ -0,0 +1,42 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.foxochat.constant.GatewayConstant;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class DispatchEnvelopeDTO {
+
+	private String node;
+
+	private GatewayConstant.BusAction action;
+
+	private long channelId;
+
+	private List<Long> channelIds;
+
+	private List<Long> userIds;
+
+	private int op;
+
+	private String d;
+
+	private String t;
+
+	public DispatchEnvelopeDTO() {
+	}
+
+	public DispatchEnvelopeDTO(String node, GatewayConstant.BusAction action, long channelId, List<Long> channelIds, List<Long> userIds, int opcode, String data, String type) {
+		this.node = node;
+		this.action = action;
+		this.channelId = channelId;
+		this.channelIds = channelIds;
+		this.userIds = userIds;
+		this.op = opcode;
+		this.d = data;
+		this.t = type;
+	}
+}
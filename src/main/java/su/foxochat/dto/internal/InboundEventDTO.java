@@ -0,0 +1,16 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+
+@Getter
+public class InboundEventDTO {
+
+	private final int opcode;
+
+	private final Object data;
+
+	public InboundEventDTO(int opcode, Object data) {
+		this.opcode = opcode;
+		this.data = data;
+	}
+}
@@ -0,0 +1,34 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+
+@Getter
+public class MessageSummaryDTO {
+
+	private final long id;
+
+	private final long channelId;
+
+	private final String content;
+
+	private final long authorId;
+
+	private final long authorUserId;
+
+	private final long authorPermissions;
+
+	private final long authorJoinedAt;
+
+	private final long timestamp;
+
+	public MessageSummaryDTO(long id, long channelId, String content, long authorId, long authorUserId, long authorPermissions, long authorJoinedAt, long timestamp) {
+		this.id = id;
+		this.channelId = channelId;
+		this.content = content;
+		this.authorId = authorId;
+		this.authorUserId = authorUserId;
+		this.authorPermissions = authorPermissions;
+		this.authorJoinedAt = authorJoinedAt;
+		this.timestamp = timestamp;
+	}
+}
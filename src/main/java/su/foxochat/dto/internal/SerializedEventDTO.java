@@ -0,0 +1,57 @@
+package su.foxochat.dto.internal;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+@Getter
+public class SerializedEventDTO {
+
+	private final int opcode;
+
+	private final String type;
+
+	// The only copy of the payload is inside prefix, the event may sit in replay buffers for a long time
+	private final String prefix;
+
+	@Getter(AccessLevel.NONE)
+	private final int dataStart;
+
+	@Getter(AccessLevel.NONE)
+	private final int dataEnd;
+
+	private final String suffix;
+
+	private volatile byte[] binaryPrefix;
+
+	private volatile byte[] binarySuffix;
+
+	public SerializedEventDTO(int opcode, String type, String prefix, int dataStart, int dataEnd, String suffix) {
+		this.opcode = opcode;
+		this.type = type;
+		this.prefix = prefix;
+		this.dataStart = dataStart;
+		this.dataEnd = dataEnd;
+		this.suffix = suffix;
+	}
+
+	public String getDataJson() {
+		return prefix.substring(dataStart, dataEnd);
+	}
+
+	public String withSequence(int sequence) {
+		return new StringBuilder(prefix.length() + suffix.length() + 11)
+				.append(prefix)
+				.append(sequence)
+				.append(suffix)
+				.toString();
+	}
+
+	public boolean hasBinary() {
+		return binarySuffix != null;
+	}
+
+	public void setBinary(byte[] prefix, byte[] suffix) {
+		this.binaryPrefix = prefix;
+		this.binarySuffix = suffix;
+	}
+}
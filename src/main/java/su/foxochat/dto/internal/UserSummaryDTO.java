@@ -0,0 +1,37 @@
+package su.foxochat.dto.internal;
+
+import lombok.Getter;
+
+@Getter
+public class UserSummaryDTO {
+
+	private final long id;
+
+	private final String displayName;
+
+	private final String username;
+
+	private final int status;
+
+	private final long statusUpdatedAt;
+
+	private final long flags;
+
+	private final int type;
+
+	private final long createdAt;
+
+	private final AttachmentSummaryDTO avatar;
+
+	public UserSummaryDTO(long id, String displayName, String username, int status, long statusUpdatedAt, long flags, int type, long createdAt, Long avatarId, String avatarUuid, String avatarFilename, String avatarContentType, Long avatarFlags) {
+		this.id = id;
+		this.displayName = displayName;
+		this.username = username;
+		this.status = status;
+		this.statusUpdatedAt = statusUpdatedAt;
+		this.flags = flags;
+		this.type = type;
+		this.createdAt = createdAt;
+		this.avatar = avatarId != null ? new AttachmentSummaryDTO(id, avatarId, avatarUuid, avatarFilename, avatarContentType, avatarFlags) : null;
+	}
+}
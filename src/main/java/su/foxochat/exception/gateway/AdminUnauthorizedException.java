@@ -0,0 +1,14 @@
+package su.foxochat.exception.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import su.foxochat.constant.ExceptionConstant;
+import su.foxochat.exception.BaseException;
+
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class AdminUnauthorizedException extends BaseException {
+
+	public AdminUnauthorizedException() {
+		super(ExceptionConstant.Messages.GATEWAY_ADMIN_UNAUTHORIZED.getValue(), AdminUnauthorizedException.class.getAnnotation(ResponseStatus.class).value(), ExceptionConstant.Gateway.ADMIN_UNAUTHORIZED.getValue());
+	}
+}
@@ -0,0 +1,14 @@
+package su.foxochat.exception.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import su.foxochat.constant.ExceptionConstant;
+import su.foxochat.exception.BaseException;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SessionNotFoundException extends BaseException {
+
+	public SessionNotFoundException() {
+		super(ExceptionConstant.Messages.GATEWAY_SESSION_NOT_FOUND.getValue(), SessionNotFoundException.class.getAnnotation(ResponseStatus.class).value(), ExceptionConstant.Gateway.SESSION_NOT_FOUND.getValue());
+	}
+}
@@ -0,0 +1,14 @@
+package su.foxochat.exception.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import su.foxochat.constant.ExceptionConstant;
+import su.foxochat.exception.BaseException;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnknownMethodException extends BaseException {
+
+	public UnknownMethodException() {
+		super(ExceptionConstant.Messages.GATEWAY_UNKNOWN_METHOD.getValue(), UnknownMethodException.class.getAnnotation(ResponseStatus.class).value(), ExceptionConstant.Gateway.UNKNOWN_METHOD.getValue());
+	}
+}
@@ -1,27 +1,29 @@
 package su.foxochat.handler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import su.foxochat.constant.GatewayConstant;
-import su.foxochat.dto.gateway.EventDTO;
 import su.foxochat.dto.gateway.response.HeartbeatACKDTO;
 import su.foxochat.handler.structure.BaseHandler;
+import su.foxochat.handler.structure.GatewayCodec;
+import su.foxochat.handler.structure.HeartbeatWheel;
+import su.foxochat.handler.structure.SessionStore;
 import su.foxochat.model.Session;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
-public class HeartbeatHandler implements BaseHandler {
+public class HeartbeatHandler implements BaseHandler<Void> {
 
-	private final ObjectMapper objectMapper;
+	private final GatewayCodec gatewayCodec;
 
-	public HeartbeatHandler(ObjectMapper objectMapper) {
-		this.objectMapper = objectMapper;
+	private final HeartbeatWheel heartbeatWheel;
+
+	public HeartbeatHandler(GatewayCodec gatewayCodec, HeartbeatWheel heartbeatWheel) {
+		this.gatewayCodec = gatewayCodec;
+		this.heartbeatWheel = heartbeatWheel;
 	}
 
 	@Override
@@ -30,14 +32,19 @@ public class HeartbeatHandler implements BaseHandler {
 	}
 
 	@Override
-	public void handle(WebSocketSession session, ConcurrentHashMap<String, Session> sessions, EventDTO payload) throws IOException {
-		Session userSession = sessions.get(session.getId());
+	public Class<Void> getPayloadType() {
+		return Void.class;
+	}
+
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, Void payload) throws IOException {
+		Session userSession = sessions.get(session);
 
-		if (userSession.isAuthenticated()) return;
+		if (!userSession.isAuthenticated()) return;
 
-		userSession.setLastPingTimestamp(System.currentTimeMillis());
+		heartbeatWheel.heartbeat(userSession);
 
-		session.sendMessage(new TextMessage(objectMapper.writeValueAsString(new HeartbeatACKDTO())));
+		userSession.send(gatewayCodec.encode(userSession, new HeartbeatACKDTO()));
 		log.debug("Got heartbeat from session ({})", session.getId());
 	}
 }
@@ -1,36 +1,51 @@
 package su.foxochat.handler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.constant.ChannelConstant;
 import su.foxochat.constant.GatewayConstant;
-import su.foxochat.constant.UserConstant;
-import su.foxochat.dto.gateway.EventDTO;
+import su.foxochat.dto.api.response.ChannelDTO;
+import su.foxochat.dto.gateway.request.IdentifyDTO;
 import su.foxochat.dto.gateway.response.HelloDTO;
+import su.foxochat.dto.gateway.response.ReadyDTO;
 import su.foxochat.handler.structure.BaseHandler;
+import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.GatewayCodec;
+import su.foxochat.handler.structure.HeartbeatWheel;
+import su.foxochat.handler.structure.SessionStore;
 import su.foxochat.model.Session;
+import su.foxochat.model.User;
 import su.foxochat.service.AuthenticationService;
-import su.foxochat.service.UserService;
+import su.foxochat.service.PresenceService;
+import su.foxochat.service.ReadyService;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 @Slf4j
 @Component
-public class HelloHandler implements BaseHandler {
+public class HelloHandler implements BaseHandler<IdentifyDTO> {
 
 	private final AuthenticationService authenticationService;
 
-	private final ObjectMapper objectMapper;
+	private final GatewayCodec gatewayCodec;
 
-	private final UserService userService;
+	private final PresenceService presenceService;
 
-	public HelloHandler(AuthenticationService authenticationService, ObjectMapper objectMapper, UserService userService) {
+	private final EventHandler eventHandler;
+
+	private final HeartbeatWheel heartbeatWheel;
+
+	private final ReadyService readyService;
+
+	public HelloHandler(AuthenticationService authenticationService, GatewayCodec gatewayCodec, PresenceService presenceService, @Lazy EventHandler eventHandler, HeartbeatWheel heartbeatWheel, ReadyService readyService) {
 		this.authenticationService = authenticationService;
-		this.objectMapper = objectMapper;
-		this.userService = userService;
+		this.gatewayCodec = gatewayCodec;
+		this.presenceService = presenceService;
+		this.eventHandler = eventHandler;
+		this.heartbeatWheel = heartbeatWheel;
+		this.readyService = readyService;
 	}
 
 	@Override
@@ -39,17 +54,38 @@ public class HelloHandler implements BaseHandler {
 	}
 
 	@Override
-	public void handle(WebSocketSession session, ConcurrentHashMap<String, Session> sessions, EventDTO payload) throws Exception {
-		@SuppressWarnings("unchecked")
-		String accessToken = ((Map<String, String>) payload.getD()).get("token");
+	public Class<IdentifyDTO> getPayloadType() {
+		return IdentifyDTO.class;
+	}
+
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, IdentifyDTO payload) throws Exception {
+		User user = authenticationService.getUser(payload.getToken(), true, false);
+		long userId = user.getId();
+		Session userSession = sessions.get(session);
+
+		long previousUserId = userSession.getUserId();
+		Set<Long> previousChannelIds = Set.copyOf(userSession.getChannels());
+
+		if (userSession.isAuthenticated()) eventHandler.removeUserSession(userSession);
 
-		long userId = authenticationService.getUser(accessToken, true, false).getId();
-		Session userSession = sessions.get(session.getId());
 		userSession.setUserId(userId);
-		userSession.setLastPingTimestamp(System.currentTimeMillis());
+		userSession.setIntents(payload.getIntents() != null ? payload.getIntents() & GatewayConstant.Intent.ALL : GatewayConstant.Intent.ALL);
+		heartbeatWheel.heartbeat(userSession);
+		eventHandler.addUserSession(userSession);
+		// Indexed by user first, so membership changes racing with this load still reach the session
+		ReadyDTO ready = readyService.build(user);
+		for (ChannelDTO channel : ready.getChannels()) {
+			if ((channel.getFlags() & ChannelConstant.Flags.PUBLIC.getBit()) != 0) eventHandler.markChannelLazy(channel.getId());
+
+			eventHandler.addChannelSession(channel.getId(), userSession);
+		}
 
-		session.sendMessage(new TextMessage(objectMapper.writeValueAsString(new HelloDTO())));
-		userService.setStatus(userId, UserConstant.Status.ONLINE.getStatus());
+		userSession.send(gatewayCodec.encode(userSession, new HelloDTO(userSession.getId())));
+		eventHandler.dispatch(userSession, gatewayCodec.serialize(GatewayConstant.Opcode.DISPATCH.ordinal(), ready, GatewayConstant.Event.READY.getValue()));
+		// Connect before releasing the previous identity, so re-identifying as the same user does not flap offline
+		presenceService.connect(userId, userSession.getChannels());
+		if (previousUserId != 0) presenceService.disconnect(previousUserId, previousChannelIds);
 		log.debug("Authenticated session ({}) with user id {}", session.getId(), userId);
 	}
 }
@@ -0,0 +1,89 @@
+package su.foxochat.handler;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.config.APIConfig;
+import su.foxochat.constant.ExceptionConstant;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.gateway.request.RequestDTO;
+import su.foxochat.dto.gateway.response.ResponseDTO;
+import su.foxochat.exception.BaseException;
+import su.foxochat.handler.structure.BaseHandler;
+import su.foxochat.handler.structure.GatewayCodec;
+import su.foxochat.handler.structure.SessionStore;
+import su.foxochat.model.Session;
+import su.foxochat.service.GatewayRequestService;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class RequestHandler implements BaseHandler<RequestDTO> {
+
+	private final GatewayRequestService gatewayRequestService;
+
+	private final GatewayCodec gatewayCodec;
+
+	private final Validator validator;
+
+	private final APIConfig apiConfig;
+
+	public RequestHandler(GatewayRequestService gatewayRequestService, GatewayCodec gatewayCodec, Validator validator, APIConfig apiConfig) {
+		this.gatewayRequestService = gatewayRequestService;
+		this.gatewayCodec = gatewayCodec;
+		this.validator = validator;
+		this.apiConfig = apiConfig;
+	}
+
+	@Override
+	public int getOpcode() {
+		return GatewayConstant.Opcode.REQUEST.ordinal();
+	}
+
+	@Override
+	public Class<RequestDTO> getPayloadType() {
+		return RequestDTO.class;
+	}
+
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, RequestDTO payload) throws IOException {
+		Session userSession = sessions.get(session);
+
+		// Without a nonce the client has no way to match the response
+		if (!userSession.isAuthenticated() || payload == null || payload.getNonce() == null) return;
+
+		userSession.send(gatewayCodec.encode(userSession, respond(userSession, payload)));
+		log.debug("Handled {} request ({}) from session ({})", payload.getMethod(), payload.getNonce(), session.getId());
+	}
+
+	private ResponseDTO respond(Session session, RequestDTO payload) {
+		Set<ConstraintViolation<RequestDTO>> violations = validator.validate(payload);
+
+		if (!violations.isEmpty()) {
+			String message = violations.stream()
+					.map(ConstraintViolation::getMessage)
+					.collect(Collectors.joining(", "));
+
+			return new ResponseDTO(payload.getNonce(), ExceptionConstant.API.VALIDATION_ERROR.getValue(), message);
+		}
+
+		try {
+			return new ResponseDTO(payload.getNonce(), gatewayRequestService.handle(session, payload));
+		} catch (BaseException e) {
+			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION.getValue(), e.getErrorCode(), e.getStatus(), e.getMessage());
+
+			return new ResponseDTO(payload.getNonce(), e.getErrorCode(), e.getMessage());
+		} catch (Exception e) {
+			String message = e.getMessage();
+			if (!apiConfig.isDevelopment() || message == null) message = ExceptionConstant.Messages.INTERNAL_ERROR.getValue();
+
+			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION_STACKTRACE.getValue(), e);
+			return new ResponseDTO(payload.getNonce(), ExceptionConstant.Unknown.ERROR.getValue(), message);
+		}
+	}
+}
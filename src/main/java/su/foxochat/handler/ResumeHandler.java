@@ -0,0 +1,53 @@
+package su.foxochat.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.gateway.request.ResumeDTO;
+import su.foxochat.dto.gateway.response.InvalidSessionDTO;
+import su.foxochat.handler.structure.BaseHandler;
+import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.GatewayCodec;
+import su.foxochat.handler.structure.SessionStore;
+import su.foxochat.model.Session;
+import su.foxochat.service.AuthenticationService;
+
+@Slf4j
+@Component
+public class ResumeHandler implements BaseHandler<ResumeDTO> {
+
+	private final AuthenticationService authenticationService;
+
+	private final GatewayCodec gatewayCodec;
+
+	private final EventHandler eventHandler;
+
+	public ResumeHandler(AuthenticationService authenticationService, GatewayCodec gatewayCodec, @Lazy EventHandler eventHandler) {
+		this.authenticationService = authenticationService;
+		this.gatewayCodec = gatewayCodec;
+		this.eventHandler = eventHandler;
+	}
+
+	@Override
+	public int getOpcode() {
+		return GatewayConstant.Opcode.RESUME.ordinal();
+	}
+
+	@Override
+	public Class<ResumeDTO> getPayloadType() {
+		return ResumeDTO.class;
+	}
+
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, ResumeDTO payload) throws Exception {
+		long userId = authenticationService.getUser(payload.getToken(), true, false).getId();
+
+		if (eventHandler.resume(session, payload.getSessionId(), userId, payload.getSeq())) return;
+
+		Session userSession = sessions.get(session);
+		userSession.send(gatewayCodec.encode(userSession, new InvalidSessionDTO()));
+		log.debug("Session ({}) could not be resumed for user id {}", payload.getSessionId(), userId);
+	}
+}
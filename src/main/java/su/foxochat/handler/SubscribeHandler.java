@@ -0,0 +1,50 @@
+package su.foxochat.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.gateway.request.SubscribeDTO;
+import su.foxochat.handler.structure.BaseHandler;
+import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.SessionStore;
+import su.foxochat.model.Session;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class SubscribeHandler implements BaseHandler<SubscribeDTO> {
+
+	private final EventHandler eventHandler;
+
+	public SubscribeHandler(@Lazy EventHandler eventHandler) {
+		this.eventHandler = eventHandler;
+	}
+
+	@Override
+	public int getOpcode() {
+		return GatewayConstant.Opcode.SUBSCRIBE.ordinal();
+	}
+
+	@Override
+	public Class<SubscribeDTO> getPayloadType() {
+		return SubscribeDTO.class;
+	}
+
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, SubscribeDTO payload) throws Exception {
+		Session userSession = sessions.get(session);
+
+		if (!userSession.isAuthenticated()) return;
+
+		List<Long> channelIds = payload != null && payload.getChannelIds() != null ? payload.getChannelIds() : List.of();
+
+		// Each subscription replaces the previous one, clients send the channels they are currently viewing
+		if (channelIds.size() > GatewayConstant.MAX_SUBSCRIPTIONS) channelIds = channelIds.subList(0, GatewayConstant.MAX_SUBSCRIPTIONS);
+
+		eventHandler.subscribe(userSession, channelIds);
+		log.debug("Session ({}) subscribed to channels {}", session.getId(), channelIds);
+	}
+}
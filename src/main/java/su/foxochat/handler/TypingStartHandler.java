@@ -1,36 +1,23 @@
 package su.foxochat.handler;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
 import su.foxochat.constant.GatewayConstant;
-import su.foxochat.dto.gateway.EventDTO;
-import su.foxochat.dto.gateway.response.TypingStartDTO;
+import su.foxochat.dto.gateway.request.TypingStartDTO;
 import su.foxochat.handler.structure.BaseHandler;
-import su.foxochat.model.Member;
+import su.foxochat.handler.structure.SessionStore;
 import su.foxochat.model.Session;
-import su.foxochat.service.ChannelService;
-import su.foxochat.service.GatewayService;
-
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import su.foxochat.service.TypingService;
 
 @Slf4j
 @Component
-public class TypingStartHandler implements BaseHandler {
-
-	private final GatewayService gatewayService;
-
-	private final ObjectMapper objectMapper;
+public class TypingStartHandler implements BaseHandler<TypingStartDTO> {
 
-	private final ChannelService channelService;
+	private final TypingService typingService;
 
-	public TypingStartHandler(@Lazy GatewayService gatewayService, ObjectMapper objectMapper, ChannelService channelService) {
-		this.gatewayService = gatewayService;
-		this.objectMapper = objectMapper;
-		this.channelService = channelService;
+	public TypingStartHandler(TypingService typingService) {
+		this.typingService = typingService;
 	}
 
 	@Override
@@ -39,15 +26,16 @@ public class TypingStartHandler implements BaseHandler {
 	}
 
 	@Override
-	public void handle(WebSocketSession session, ConcurrentHashMap<String, Session> sessions, EventDTO payload) throws Exception {
-		TypingStartDTO data = objectMapper.convertValue(payload.getD(), TypingStartDTO.class);
-		long channelId = data.getD().get("channelId");
-		Session userSession = sessions.get(session.getId());
+	public Class<TypingStartDTO> getPayloadType() {
+		return TypingStartDTO.class;
+	}
 
-		if (!userSession.isAuthenticated()) return;
+	@Override
+	public void handle(WebSocketSession session, SessionStore sessions, TypingStartDTO payload) throws Exception {
+		Session userSession = sessions.get(session);
 
-		List<Long> recipients = channelService.getById(channelId).getMembers().stream().map(Member::getId).toList();
+		if (!userSession.isAuthenticated() || payload == null) return;
 
-		gatewayService.sendMessageToSpecificSessions(recipients, GatewayConstant.Opcode.DISPATCH.ordinal(), new TypingStartDTO(channelId, userSession.getUserId(), System.currentTimeMillis()), GatewayConstant.Event.TYPING_START.getValue());
+		typingService.start(userSession, payload.getChannelId());
 	}
 }
@@ -0,0 +1,137 @@
+package su.foxochat.handler.structure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import su.foxochat.config.GatewayConfig;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AdmissionController {
+
+	private static final long SWEEP_INTERVAL = 60000;
+
+	private final GatewayConfig gatewayConfig;
+
+	private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+	private final Semaphore identifyPermits;
+
+	private final Counter handshakeRejectedCounter;
+
+	private final Counter identifyRejectedCounter;
+
+	private volatile boolean draining;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-admission").factory());
+
+	public AdmissionController(GatewayConfig gatewayConfig, MeterRegistry meterRegistry) {
+		this.gatewayConfig = gatewayConfig;
+		this.identifyPermits = new Semaphore(gatewayConfig.getIdentifyConcurrency());
+		this.handshakeRejectedCounter = meterRegistry.counter("gateway.admission.rejected", "stage", "handshake");
+		this.identifyRejectedCounter = meterRegistry.counter("gateway.admission.rejected", "stage", "identify");
+
+		executor.scheduleAtFixedRate(this::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	public void startDraining() {
+		draining = true;
+	}
+
+	public boolean isDraining() {
+		return draining;
+	}
+
+	// With server.forward-headers-strategy: native the peer is already the client taken from X-Forwarded-For, on both transports
+	public static String getClientAddress(InetSocketAddress remoteAddress) {
+		return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+	}
+
+	// Null when admitted, otherwise the status the handshake is refused with
+	public HttpStatus checkHandshake(String address) {
+		if (draining) return HttpStatus.SERVICE_UNAVAILABLE;
+
+		return tryAdmitHandshake(address) ? null : HttpStatus.TOO_MANY_REQUESTS;
+	}
+
+	public boolean tryAdmitHandshake(String address) {
+		TokenBucket bucket = buckets.computeIfAbsent(address, a -> new TokenBucket(gatewayConfig.getHandshakeBurst()));
+
+		if (bucket.tryAcquire(gatewayConfig.getHandshakeRate(), gatewayConfig.getHandshakeBurst())) return true;
+
+		handshakeRejectedCounter.increment();
+		return false;
+	}
+
+	// Bounds the JWT checks and database reads that IDENTIFY and RESUME run, so a reconnect storm queues instead of piling onto the pool
+	public boolean tryAcquireIdentify() throws InterruptedException {
+		if (identifyPermits.tryAcquire(gatewayConfig.getIdentifyTimeout(), TimeUnit.MILLISECONDS)) return true;
+
+		identifyRejectedCounter.increment();
+		return false;
+	}
+
+	public void releaseIdentify() {
+		identifyPermits.release();
+	}
+
+	// Jittered so rejected clients do not come back as the same wave
+	public long getRetryAfter() {
+		long base = gatewayConfig.getAdmissionRetryAfter();
+
+		return base + ThreadLocalRandom.current().nextLong(base + 1);
+	}
+
+	// Retry-After header value, rounded up to whole seconds
+	public String getRetryAfterHeader() {
+		return String.valueOf(TimeUnit.MILLISECONDS.toSeconds(getRetryAfter()) + 1);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private void sweep() {
+		long now = System.nanoTime();
+		long idle = TimeUnit.MILLISECONDS.toNanos(SWEEP_INTERVAL);
+
+		buckets.values().removeIf(bucket -> bucket.isIdle(now, idle));
+	}
+
+	private static class TokenBucket {
+
+		private double tokens;
+
+		private long refilledAt = System.nanoTime();
+
+		private TokenBucket(double tokens) {
+			this.tokens = tokens;
+		}
+
+		private synchronized boolean tryAcquire(double rate, double burst) {
+			long now = System.nanoTime();
+
+			tokens = Math.min(burst, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+			refilledAt = now;
+
+			if (tokens < 1) return false;
+
+			tokens--;
+			return true;
+		}
+
+		private synchronized boolean isIdle(long now, long idle) {
+			return now - refilledAt > idle;
+		}
+	}
+}
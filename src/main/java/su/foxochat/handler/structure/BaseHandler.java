@@ -2,15 +2,14 @@ package su.foxochat.handler.structure;
 
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
-import su.foxochat.dto.gateway.EventDTO;
-import su.foxochat.model.Session;
-
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
-public interface BaseHandler {
+public interface BaseHandler<T> {
 
 	int getOpcode();
 
-	void handle(WebSocketSession session, ConcurrentHashMap<String, Session> sessions, EventDTO payload) throws Exception;
+	// Type "d" is bound to while parsing, Void skips it
+	Class<T> getPayloadType();
+
+	void handle(WebSocketSession session, SessionStore sessions, T payload) throws Exception;
 }
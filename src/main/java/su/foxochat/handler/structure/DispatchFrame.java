@@ -0,0 +1,46 @@
+package su.foxochat.handler.structure;
+
+import io.undertow.connector.ByteBufferPool;
+import su.foxochat.dto.internal.SerializedEventDTO;
+
+// The shared frame of one dispatch call, encoded on first use and holding one reference until the dispatch has reached every shard
+// Scoped to the call rather than the event, so an event dispatched again gets a frame of its own
+public class DispatchFrame {
+
+	private final SerializedEventDTO event;
+
+	private volatile SharedFrame frame;
+
+	private boolean released;
+
+	public DispatchFrame(SerializedEventDTO event) {
+		this.event = event;
+	}
+
+	// Null once released or when the event is too large to share, the caller then falls back to text
+	public SharedFrame retain(ByteBufferPool pool) {
+		SharedFrame current = frame;
+
+		if (current == null) current = create(pool);
+
+		return current != null && current.retain() ? current : null;
+	}
+
+	public synchronized void release() {
+		if (released) return;
+
+		released = true;
+		if (frame != null) frame.release();
+	}
+
+	private synchronized SharedFrame create(ByteBufferPool pool) {
+		if (frame == null && !released) {
+			frame = SharedFrame.encode(pool, event.getPrefix(), event.getSuffix());
+
+			// Too large to share, later recipients go straight to text
+			if (frame == null) released = true;
+		}
+
+		return frame;
+	}
+}
@@ -1,100 +1,450 @@
 package su.foxochat.handler.structure;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import su.foxochat.config.GatewayConfig;
 import su.foxochat.constant.CloseCodeConstant;
 import su.foxochat.constant.ExceptionConstant;
 import su.foxochat.constant.GatewayConstant;
-import su.foxochat.constant.UserConstant;
-import su.foxochat.dto.gateway.EventDTO;
+import su.foxochat.dto.internal.InboundEventDTO;
+import su.foxochat.dto.internal.SerializedEventDTO;
 import su.foxochat.exception.user.UserUnauthorizedException;
 import su.foxochat.model.Session;
-import su.foxochat.service.UserService;
+import su.foxochat.service.PresenceService;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
-public class EventHandler extends TextWebSocketHandler {
+public class EventHandler extends AbstractWebSocketHandler {
 
 	private final EventHandlerRegistry handlerRegistry;
 
-	private final ObjectMapper objectMapper;
+	private final GatewayCodec gatewayCodec;
 
 	@Getter
-	private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+	private final SessionStore sessionStore;
 
-	private final UserService userService;
+	private final ConcurrentHashMap<Long, Set<Session>> userSessions = new ConcurrentHashMap<>();
 
-	public EventHandler(EventHandlerRegistry handlerRegistry, ObjectMapper objectMapper, UserService userService) {
+	private final ConcurrentHashMap<Long, Set<Session>> channelSessions = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Long, Set<Session>> channelSubscribers = new ConcurrentHashMap<>();
+
+	private final Set<Long> lazyChannels = ConcurrentHashMap.newKeySet();
+
+	private final ScheduledExecutorService resumeExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-resume").factory());
+
+	private final PresenceService presenceService;
+
+	private final GatewayConfig gatewayConfig;
+
+	private final Counter droppedCounter;
+
+	private final Counter sentBytesCounter;
+
+	private final Timer[] inboundTimers;
+
+	private final Counter unknownOpcodeCounter;
+
+	private final HeartbeatWheel heartbeatWheel;
+
+	private final SessionTable sessionTable;
+
+	private final AdmissionController admissionController;
+
+	public EventHandler(EventHandlerRegistry handlerRegistry, GatewayCodec gatewayCodec, PresenceService presenceService, GatewayConfig gatewayConfig, MeterRegistry meterRegistry, HeartbeatWheel heartbeatWheel, SessionStore sessionStore, SessionTable sessionTable, AdmissionController admissionController) {
 		this.handlerRegistry = handlerRegistry;
-		this.objectMapper = objectMapper;
-		this.userService = userService;
-
-		try (ScheduledExecutorService executor = Executors.newScheduledThreadPool(1, Thread.ofVirtual().factory())) {
-			Runnable task = () -> sessions.values().forEach(session -> {
-				long lastPingTimestamp = session.getLastPingTimestamp();
-
-				long timeout = (GatewayConstant.HEARTBEAT_INTERVAL + GatewayConstant.HEARTBEAT_TIMEOUT);
-
-				if (lastPingTimestamp < (System.currentTimeMillis() - timeout)) {
-					try {
-						session.getWebSocketSession().close(CloseCodeConstant.HEARTBEAT_TIMEOUT);
-						log.debug("Session closed due to heartbeat timeout: {}", session.getWebSocketSession().getId());
-					} catch (IOException e) {
-						log.error("Error closing session: {}", session.getWebSocketSession().getId(), e);
-						throw new RuntimeException(e);
-					}
-				}
-			});
-
-			executor.scheduleAtFixedRate(task, 0, 30, TimeUnit.SECONDS);
-		} catch (Exception e) {
-			log.error("Error initializing thread: {}", e.getMessage());
+		this.gatewayCodec = gatewayCodec;
+		this.presenceService = presenceService;
+		this.gatewayConfig = gatewayConfig;
+		this.heartbeatWheel = heartbeatWheel;
+		this.sessionStore = sessionStore;
+		this.sessionTable = sessionTable;
+		this.admissionController = admissionController;
+		this.droppedCounter = meterRegistry.counter("gateway.outbound.dropped");
+		this.sentBytesCounter = Counter.builder("gateway.outbound.sent")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		this.unknownOpcodeCounter = meterRegistry.counter("gateway.inbound.unknown");
+
+		// One timer per registered opcode, resolved by index on the hot path
+		this.inboundTimers = new Timer[handlerRegistry.size()];
+		for (int opcode = 0; opcode < inboundTimers.length; opcode++) {
+			BaseHandler<?> handler = handlerRegistry.getHandler(opcode);
+
+			if (handler == null) continue;
+
+			inboundTimers[opcode] = Timer.builder("gateway.inbound")
+					.tag("opcode", opcode < GatewayConstant.Opcode.values().length ? GatewayConstant.Opcode.values()[opcode].name() : String.valueOf(opcode))
+					.tag("handler", handler.getClass().getSimpleName())
+					.publishPercentileHistogram()
+					.register(meterRegistry);
 		}
+
+		Gauge.builder("gateway.outbound.queue.depth", sessionStore, s -> s.stream().mapToInt(session -> session.getOutboundQueue().size()).sum())
+				.register(meterRegistry);
+		Gauge.builder("gateway.outbound.queue.bytes", sessionStore, s -> s.stream().mapToLong(session -> session.getOutboundQueue().getQueuedBytes()).sum())
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("gateway.sessions", sessionStore, SessionStore::size)
+				.register(meterRegistry);
+		Gauge.builder("gateway.sessions.slots", sessionTable, SessionTable::getCapacity)
+				.register(meterRegistry);
+		Gauge.builder("gateway.sessions.pending", sessionStore, SessionStore::getPendingTasks)
+				.register(meterRegistry);
 	}
 
 	@Override
 	public void afterConnectionEstablished(@NonNull WebSocketSession session) {
 		log.debug("Connection for session ({}) established", session.getId());
-		sessions.put(session.getId(), new Session(session));
+		OutboundQueue outboundQueue = new OutboundQueue(session, gatewayConfig.getOutboundQueueMessages(), gatewayConfig.getOutboundQueueBytes(), droppedCounter, sentBytesCounter);
+		Session userSession = new Session(sessionTable, session, outboundQueue, new ReplayBuffer(gatewayConfig.getReplayBufferSize()));
+
+		if (session.getUri() != null) {
+			MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+			userSession.setEncoding(GatewayConstant.Encoding.of(params.getFirst("encoding")));
+
+			GatewayConstant.Compression compression = GatewayConstant.Compression.of(params.getFirst("compress"));
+			if (compression == GatewayConstant.Compression.ZLIB_STREAM && gatewayConfig.isCompressionEnabled()) {
+				outboundQueue.setCompressor(new ZlibStream(gatewayConfig.getCompressionLevel(), gatewayConfig.isCompressionContextTakeover()));
+			}
+
+			if (Boolean.parseBoolean(params.getFirst("batch"))) outboundQueue.setBatchWindow(gatewayConfig.getBatchWindow());
+		}
+
+		sessionStore.add(userSession);
+		heartbeatWheel.heartbeat(userSession);
 	}
 
 	@Override
 	public void afterConnectionClosed(WebSocketSession session, @NonNull CloseStatus status) throws Exception {
 		log.debug("Connection for session ({}) closed with status {} ({})", session.getId(), status.getReason(), status.getCode());
 
-		Session userSession = sessions.get(session.getId());
+		Session userSession = sessionStore.get(session);
+
+		if (userSession == null) return;
+
+		userSession.getOutboundQueue().close();
+		heartbeatWheel.cancel(userSession);
+
+		SessionShard shard = sessionStore.getShard(userSession);
+		shard.execute(() -> {
+			shard.getSessions().remove(userSession.getId(), userSession);
+
+			if (!userSession.isAuthenticated()) {
+				userSession.release();
+				return;
+			}
+
+			if (userSession.isTerminated()) {
+				discard(userSession);
+				return;
+			}
+
+			// Keep the session indexed so it keeps buffering dispatches until it is resumed or expires
+			int detach = userSession.detach();
+			shard.getDetachedSessions().put(userSession.getId(), userSession);
+			resumeExecutor.schedule(() -> shard.execute(() -> expire(shard, userSession, detach)), gatewayConfig.getResumeTimeout(), TimeUnit.MILLISECONDS);
+		});
+	}
+
+	public boolean resume(WebSocketSession session, String sessionId, long userId, int sequence) throws InterruptedException, ExecutionException {
+		Session freshSession = sessionStore.get(session);
+
+		if (freshSession == null || freshSession.isAuthenticated() || sessionId == null) return false;
+
+		SessionShard shard = sessionStore.getShard(sessionId);
+		AtomicBoolean claimed = new AtomicBoolean();
+		CompletableFuture<Boolean> future = shard.submit(() -> {
+			// Given up on by the handler below, the client was already told INVALID_SESSION
+			if (!claimed.compareAndSet(false, true)) return false;
+
+			Session userSession = shard.getDetachedSessions().get(sessionId);
+
+			if (userSession == null || userSession.getUserId() != userId) return false;
+
+			shard.getDetachedSessions().remove(sessionId);
+
+			if (!userSession.getReplayBuffer().canReplayAfter(sequence, userSession.getSequence())) {
+				discard(userSession);
+				return false;
+			}
+
+			userSession.attach(session, freshSession.getOutboundQueue(), freshSession.getEncoding());
+			sessionStore.remove(freshSession);
+			sessionStore.add(userSession);
+			heartbeatWheel.cancel(freshSession);
+			freshSession.release();
+			heartbeatWheel.heartbeat(userSession);
+
+			userSession.getReplayBuffer().replayAfter(sequence, (event, eventSequence) -> userSession.send(gatewayCodec.encode(userSession, event, eventSequence)));
+			// A single recipient, not worth a shared frame
+			write(userSession, gatewayCodec.serialize(GatewayConstant.Opcode.DISPATCH.ordinal(), null, GatewayConstant.Event.RESUMED.getValue()), null);
+			return true;
+		});
+
+		boolean resumed;
+
+		// A shard backed up by a large fan-out should not hold this thread and its IDENTIFY/RESUME permit
+		try {
+			resumed = future.get(gatewayConfig.getResumeWaitTimeout(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			if (claimed.compareAndSet(false, true)) {
+				log.debug("Gave up resuming session ({}), its shard is backed up", sessionId);
+				return false;
+			}
+
+			// Already running, it may attach this connection so its outcome has to be waited for
+			resumed = future.get();
+		}
+
+		if (resumed) log.debug("Resumed session ({}) for user id {} after sequence {}", sessionId, userId, sequence);
+		return resumed;
+	}
+
+	// Closes the connection for good, the session is not kept for RESUME
+	public void terminate(Session session) throws IOException {
+		session.setTerminated(true);
+
+		if (session.isAttached()) {
+			session.getWebSocketSession().close(CloseCodeConstant.SESSION_TERMINATED);
+			return;
+		}
+
+		SessionShard shard = sessionStore.getShard(session);
+		shard.execute(() -> {
+			if (shard.getDetachedSessions().remove(session.getId(), session)) discard(session);
+		});
+	}
+
+	public void dispatch(Session session, SerializedEventDTO event) {
+		DispatchFrame frame = new DispatchFrame(event);
+
+		sessionStore.getShard(session).execute(() -> {
+			try {
+				write(session, event, frame);
+			} finally {
+				frame.release();
+			}
+		});
+	}
+
+	public void dispatch(Collection<Session> sessions, SerializedEventDTO event) {
+		long intent = GatewayConstant.Event.getIntentBit(event.getType());
+		DispatchFrame frame = new DispatchFrame(event);
+
+		sessionStore.execute(sessions, session -> session.hasIntent(intent), session -> write(session, event, frame), frame::release);
+	}
+
+	// Runs on the session's shard, its only writer, so sequence numbers reach the queue in the order they are assigned
+	private void write(Session session, SerializedEventDTO event, DispatchFrame frame) throws IOException {
+		// Queued before the session was discarded, its slot may already belong to another one
+		if (session.isReleased()) return;
+
+		int sequence = session.getSequence();
+		session.increaseSequence();
+		// A resuming client already has its READY, keeping it would hold the whole ready payload for every idle session
+		if (isReplayable(event)) session.getReplayBuffer().add(sequence, event);
+
+		if (session.isAttached()) session.send(gatewayCodec.encode(session, event, sequence, frame), isImmediate(event));
+	}
+
+	private static boolean isReplayable(SerializedEventDTO event) {
+		return !GatewayConstant.Event.READY.getValue().equals(event.getType()) && !GatewayConstant.Event.RESUMED.getValue().equals(event.getType());
+	}
+
+	private static boolean isImmediate(SerializedEventDTO event) {
+		// Typing indicators are only useful when they arrive right away, and READY gates the client's startup
+		return GatewayConstant.Event.TYPING_START.getValue().equals(event.getType()) || GatewayConstant.Event.READY.getValue().equals(event.getType());
+	}
+
+	private void expire(SessionShard shard, Session session, int detach) {
+		// A session resumed and dropped again is expired by the task scheduled on its latest detach
+		// Compared by detach count rather than wall clock, a clock step back would otherwise skip the only expiry it gets
+		if (session.getDetaches() != detach) return;
+		if (!shard.getDetachedSessions().remove(session.getId(), session)) return;
+
+		discard(session);
+		log.debug("Session ({}) expired without resume", session.getId());
+	}
+
+	private void discard(Session session) {
+		Set<Long> channelIds = Set.copyOf(session.getChannels());
 
-		if (userSession.isAuthenticated()) {
-			userService.setStatus(userSession.getUserId(), UserConstant.Status.ONLINE.getStatus());
+		removeUserSession(session);
+		presenceService.disconnect(session.getUserId(), channelIds);
+		session.release();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		resumeExecutor.shutdownNow();
+	}
+
+	@Override
+	protected void handlePongMessage(@NonNull WebSocketSession session, @NonNull PongMessage message) {
+		Session userSession = sessionStore.get(session);
+
+		// Unsolicited pongs act as a heartbeat without a JSON round trip
+		if (userSession != null && userSession.isAuthenticated()) heartbeatWheel.heartbeat(userSession);
+	}
+
+	public void addUserSession(Session session) {
+		userSessions.compute(session.getUserId(), (userId, set) -> {
+			if (set == null) set = ConcurrentHashMap.newKeySet();
+
+			set.add(session);
+			return set;
+		});
+	}
+
+	public void removeUserSession(Session session) {
+		userSessions.computeIfPresent(session.getUserId(), (userId, set) -> {
+			set.remove(session);
+			return set.isEmpty() ? null : set;
+		});
+
+		for (long channelId : session.getChannels()) removeChannelSession(channelId, session);
+	}
+
+	public Set<Session> getUserSessions(long userId) {
+		return userSessions.getOrDefault(userId, Collections.emptySet());
+	}
+
+	public void subscribe(Session session, Collection<Long> channelIds) {
+		Set<Long> requested = Set.copyOf(channelIds);
+
+		for (long channelId : session.getSubscriptions()) {
+			if (!requested.contains(channelId)) removeSubscriber(channelId, session);
+		}
+
+		for (long channelId : requested) {
+			// Only channels the session is a member of can be subscribed to
+			if (session.getChannels().contains(channelId)) addSubscriber(channelId, session);
 		}
-		sessions.remove(session.getId());
+	}
+
+	public void markChannelLazy(long channelId) {
+		lazyChannels.add(channelId);
+	}
+
+	public boolean isChannelLazy(long channelId) {
+		return lazyChannels.contains(channelId);
+	}
+
+	public void addChannelMember(long channelId, long userId) {
+		for (Session session : getUserSessions(userId)) addChannelSession(channelId, session);
+	}
+
+	public void removeChannelMember(long channelId, long userId) {
+		for (Session session : getUserSessions(userId)) removeChannelSession(channelId, session);
+	}
+
+	public void removeChannel(long channelId) {
+		lazyChannels.remove(channelId);
+
+		Set<Session> subscribers = channelSubscribers.remove(channelId);
+		if (subscribers != null) {
+			for (Session session : subscribers) session.getSubscriptions().remove(channelId);
+		}
+
+		Set<Session> set = channelSessions.remove(channelId);
+		if (set != null) {
+			for (Session session : set) session.getChannels().remove(channelId);
+		}
+	}
+
+	public Set<Session> getChannelSessions(long channelId) {
+		return channelSessions.getOrDefault(channelId, Collections.emptySet());
+	}
+
+	public Set<Session> getChannelSubscribers(long channelId) {
+		return channelSubscribers.getOrDefault(channelId, Collections.emptySet());
+	}
+
+	public void addChannelSession(long channelId, Session session) {
+		session.getChannels().add(channelId);
+		channelSessions.compute(channelId, (id, set) -> {
+			if (set == null) set = ConcurrentHashMap.newKeySet();
+
+			set.add(session);
+			return set;
+		});
+	}
+
+	private void removeChannelSession(long channelId, Session session) {
+		removeSubscriber(channelId, session);
+		session.getChannels().remove(channelId);
+		channelSessions.computeIfPresent(channelId, (id, set) -> {
+			set.remove(session);
+			return set.isEmpty() ? null : set;
+		});
+	}
+
+	private void addSubscriber(long channelId, Session session) {
+		session.addSubscription(channelId);
+		channelSubscribers.compute(channelId, (id, set) -> {
+			if (set == null) set = ConcurrentHashMap.newKeySet();
+
+			set.add(session);
+			return set;
+		});
+	}
+
+	private void removeSubscriber(long channelId, Session session) {
+		if (!session.getSubscriptions().remove(channelId)) return;
+
+		channelSubscribers.computeIfPresent(channelId, (id, set) -> {
+			set.remove(session);
+			return set.isEmpty() ? null : set;
+		});
 	}
 
 	@Override
 	protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) throws Exception {
 		try {
-			EventDTO payload = objectMapper.readValue(message.getPayload(), EventDTO.class);
-			int opcode = payload.getOp();
+			handlePayload(session, gatewayCodec.decode(message, handlerRegistry));
+		} catch (UserUnauthorizedException e) {
+			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION.getValue(), null, null, message);
 
-			BaseHandler handler = handlerRegistry.getHandler(opcode);
+			session.close(CloseCodeConstant.UNAUTHORIZED);
+		} catch (Exception e) {
+			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION.getValue(), null, null, message);
+			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION_STACKTRACE.getValue(), e);
+		}
+	}
 
-			if (handler != null) {
-				handler.handle(session, sessions, payload);
-				log.debug("Handling {} event with opcode {}", payload.getT(), payload.getOp());
-			}
+	@Override
+	protected void handleBinaryMessage(@NonNull WebSocketSession session, @NonNull BinaryMessage message) throws Exception {
+		try {
+			handlePayload(session, gatewayCodec.decode(message, handlerRegistry));
 		} catch (UserUnauthorizedException e) {
 			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION.getValue(), null, null, message);
 
@@ -104,4 +454,42 @@ public class EventHandler extends TextWebSocketHandler {
 			log.error(ExceptionConstant.Messages.SERVER_EXCEPTION_STACKTRACE.getValue(), e);
 		}
 	}
+
+	private void handlePayload(WebSocketSession session, InboundEventDTO event) throws Exception {
+		BaseHandler<?> handler = handlerRegistry.getHandler(event.getOpcode());
+
+		if (handler == null) {
+			unknownOpcodeCounter.increment();
+			return;
+		}
+
+		boolean gated = isAdmissionControlled(event.getOpcode());
+
+		if (gated && !admissionController.tryAcquireIdentify()) {
+			session.close(CloseCodeConstant.rateLimited(admissionController.getRetryAfter()));
+			log.debug("Rejected opcode {} for session ({}), identify limit reached", event.getOpcode(), session.getId());
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		try {
+			handle(handler, session, event.getData());
+		} finally {
+			if (gated) admissionController.releaseIdentify();
+			inboundTimers[event.getOpcode()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+
+		log.debug("Handled event with opcode {}", event.getOpcode());
+	}
+
+	private static boolean isAdmissionControlled(int opcode) {
+		return opcode == GatewayConstant.Opcode.IDENTIFY.ordinal() || opcode == GatewayConstant.Opcode.RESUME.ordinal();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> void handle(BaseHandler<T> handler, WebSocketSession session, Object payload) throws Exception {
+		// The codec bound the payload to handler.getPayloadType()
+		handler.handle(session, sessionStore, (T) payload);
+	}
 }
@@ -2,22 +2,27 @@ package su.foxochat.handler.structure;
 
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class EventHandlerRegistry {
 
-	private final Map<Integer, BaseHandler> handlers = new HashMap<>();
+	private final BaseHandler<?>[] handlers;
 
-	public EventHandlerRegistry(List<BaseHandler> handlers) {
-		for (BaseHandler handler : handlers) {
-			this.handlers.put(handler.getOpcode(), handler);
+	public EventHandlerRegistry(List<BaseHandler<?>> handlers) {
+		int size = handlers.stream().mapToInt(BaseHandler::getOpcode).max().orElse(-1) + 1;
+
+		this.handlers = new BaseHandler<?>[size];
+		for (BaseHandler<?> handler : handlers) {
+			this.handlers[handler.getOpcode()] = handler;
 		}
 	}
 
-	public BaseHandler getHandler(int event) {
-		return handlers.get(event);
+	public int size() {
+		return handlers.length;
+	}
+
+	public BaseHandler<?> getHandler(int opcode) {
+		return opcode >= 0 && opcode < handlers.length ? handlers[opcode] : null;
 	}
 }
@@ -0,0 +1,228 @@
+package su.foxochat.handler.structure;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.internal.InboundEventDTO;
+import su.foxochat.dto.internal.SerializedEventDTO;
+import su.foxochat.model.Session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Component
+public class GatewayCodec {
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectMapper cborMapper;
+
+	public GatewayCodec(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.cborMapper = objectMapper.copyWith(new CBORFactory());
+	}
+
+	public InboundEventDTO decode(TextMessage message, EventHandlerRegistry registry) throws IOException {
+		try (JsonParser parser = objectMapper.createParser(message.getPayload())) {
+			return decode(objectMapper, parser, registry);
+		}
+	}
+
+	public InboundEventDTO decode(BinaryMessage message, EventHandlerRegistry registry) throws IOException {
+		ByteBuffer payload = message.getPayload();
+		byte[] bytes;
+		int offset = 0;
+
+		if (payload.hasArray()) {
+			bytes = payload.array();
+			offset = payload.arrayOffset() + payload.position();
+		} else {
+			bytes = new byte[payload.remaining()];
+			payload.duplicate().get(bytes);
+		}
+
+		try (JsonParser parser = cborMapper.createParser(bytes, offset, payload.remaining())) {
+			return decode(cborMapper, parser, registry);
+		}
+	}
+
+	public WebSocketMessage<?> encode(Session session, Object value) throws IOException {
+		if (session.getEncoding() == GatewayConstant.Encoding.CBOR) {
+			return new BinaryMessage(cborMapper.writeValueAsBytes(value));
+		}
+
+		return new TextMessage(objectMapper.writeValueAsString(value));
+	}
+
+	public SerializedEventDTO serialize(int opcode, Object data, String type) throws IOException {
+		return serializeRaw(opcode, objectMapper.writeValueAsString(data), type);
+	}
+
+	public SerializedEventDTO serializeRaw(int opcode, String dataJson, String type) throws IOException {
+		// Same field order as EventDTO, only "s" differs between recipients
+		String head = "{\"op\":" + opcode + ",\"d\":";
+		String prefix = head + dataJson + ",\"s\":";
+		String suffix = ",\"t\":" + objectMapper.writeValueAsString(type) + "}";
+
+		return new SerializedEventDTO(opcode, type, prefix, head.length(), head.length() + dataJson.length(), suffix);
+	}
+
+	public WebSocketMessage<?> encode(Session session, SerializedEventDTO event, int sequence) throws IOException {
+		return encode(session, event, sequence, null);
+	}
+
+	public WebSocketMessage<?> encode(Session session, SerializedEventDTO event, int sequence, DispatchFrame dispatchFrame) throws IOException {
+		if (session.getEncoding() != GatewayConstant.Encoding.CBOR) {
+			// Native sessions whose frames go out untouched copy the dispatch's shared encoding instead of building a string each
+			if (dispatchFrame != null && session.getWebSocketSession() instanceof UndertowWebSocketSession nativeSession && session.getOutboundQueue().isPassthrough()) {
+				SharedFrame frame = dispatchFrame.retain(nativeSession.getBufferPool());
+
+				if (frame != null) return new SharedTextMessage(frame, sequence);
+			}
+
+			return new TextMessage(event.withSequence(sequence));
+		}
+
+		if (!event.hasBinary()) serializeBinary(event);
+
+		byte[] prefix = event.getBinaryPrefix();
+		byte[] suffix = event.getBinarySuffix();
+		ByteArrayOutputStream frame = new ByteArrayOutputStream(prefix.length + suffix.length + 5);
+
+		frame.writeBytes(prefix);
+		writeUnsigned(frame, sequence);
+		frame.writeBytes(suffix);
+
+		return new BinaryMessage(frame.toByteArray());
+	}
+
+	// Reads "op" first so "d" can be bound straight into the handler's payload type, without a map tree in between
+	private static InboundEventDTO decode(ObjectMapper mapper, JsonParser parser, EventHandlerRegistry registry) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "Expected gateway event object");
+
+		int opcode = -1;
+		Object data = null;
+		TokenBuffer pendingData = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			parser.nextToken();
+
+			if ("op".equals(field)) {
+				opcode = parser.getIntValue();
+			} else if ("d".equals(field) && opcode < 0) {
+				// "d" came before "op", keep its tokens until the type is known
+				pendingData = new TokenBuffer(parser);
+				pendingData.copyCurrentStructure(parser);
+			} else if ("d".equals(field)) {
+				data = readData(mapper, parser, registry.getHandler(opcode));
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		if (pendingData != null) {
+			try (JsonParser bufferedParser = pendingData.asParser()) {
+				bufferedParser.nextToken();
+				data = readData(mapper, bufferedParser, registry.getHandler(opcode));
+			}
+		}
+
+		return new InboundEventDTO(opcode, data);
+	}
+
+	private static Object readData(ObjectMapper mapper, JsonParser parser, BaseHandler<?> handler) throws IOException {
+		if (handler == null || handler.getPayloadType() == Void.class || parser.currentToken() == JsonToken.VALUE_NULL) {
+			parser.skipChildren();
+			return null;
+		}
+
+		return mapper.readValue(parser, handler.getPayloadType());
+	}
+
+	private void serializeBinary(SerializedEventDTO event) throws IOException {
+		// Read back from the JSON rather than kept as objects, once per event that has a CBOR recipient
+		Object data = objectMapper.readTree(event.getDataJson());
+
+		// Definite-length CBOR map {"op", "d", "s", "t"} with "s" left open for the sequence
+		ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+		prefix.write(0xA4);
+		writeKey(prefix, "op");
+		writeUnsigned(prefix, event.getOpcode());
+		writeKey(prefix, "d");
+		prefix.writeBytes(cborMapper.writeValueAsBytes(data));
+		writeKey(prefix, "s");
+
+		ByteArrayOutputStream suffix = new ByteArrayOutputStream();
+		writeKey(suffix, "t");
+		suffix.writeBytes(cborMapper.writeValueAsBytes(event.getType()));
+
+		event.setBinary(prefix.toByteArray(), suffix.toByteArray());
+	}
+
+	// Joins already encoded frames into one JSON or CBOR array, sequence numbers stay inside each event
+	public static WebSocketMessage<?> batch(List<WebSocketMessage<?>> messages) {
+		if (messages.getFirst() instanceof TextMessage) {
+			StringBuilder frame = new StringBuilder("[");
+
+			for (WebSocketMessage<?> message : messages) {
+				if (frame.length() > 1) frame.append(',');
+				frame.append(((TextMessage) message).getPayload());
+			}
+
+			return new TextMessage(frame.append(']'));
+		}
+
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		writeHead(frame, 0x80, messages.size());
+
+		for (WebSocketMessage<?> message : messages) {
+			ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+			byte[] bytes = new byte[payload.remaining()];
+			payload.get(bytes);
+			frame.writeBytes(bytes);
+		}
+
+		return new BinaryMessage(frame.toByteArray());
+	}
+
+	private static void writeKey(ByteArrayOutputStream out, String key) {
+		// Short ASCII text string, major type 3
+		out.write(0x60 | key.length());
+		out.writeBytes(key.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static void writeUnsigned(ByteArrayOutputStream out, long value) {
+		writeHead(out, 0x00, value);
+	}
+
+	private static void writeHead(ByteArrayOutputStream out, int majorType, long value) {
+		if (value < 24) {
+			out.write(majorType | (int) value);
+		} else if (value < 0x100) {
+			out.write(majorType | 0x18);
+			out.write((int) value);
+		} else if (value < 0x10000) {
+			out.write(majorType | 0x19);
+			out.write((int) (value >> 8));
+			out.write((int) value);
+		} else {
+			out.write(majorType | 0x1A);
+			out.write((int) (value >> 24));
+			out.write((int) (value >> 16));
+			out.write((int) (value >> 8));
+			out.write((int) value);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package su.foxochat.handler.structure;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import su.foxochat.config.GatewayConfig;
+import su.foxochat.dto.gateway.response.ReconnectDTO;
+import su.foxochat.model.Session;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Slf4j
+@Component
+public class GatewayDrainer implements SmartLifecycle {
+
+	private static final long FLUSH_POLL_INTERVAL = 100;
+
+	private final SessionStore sessionStore;
+
+	private final AdmissionController admissionController;
+
+	private final GatewayCodec gatewayCodec;
+
+	private final GatewayConfig gatewayConfig;
+
+	private volatile boolean running;
+
+	public GatewayDrainer(SessionStore sessionStore, AdmissionController admissionController, GatewayCodec gatewayCodec, GatewayConfig gatewayConfig) {
+		this.sessionStore = sessionStore;
+		this.admissionController = admissionController;
+		this.gatewayCodec = gatewayCodec;
+		this.gatewayConfig = gatewayConfig;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		drain();
+		running = false;
+	}
+
+	// Default phase stops before the web server, so sockets are still open while waves go out
+	@Override
+	public void stop(@NonNull Runnable callback) {
+		Thread.ofVirtual().name("gateway-drain").start(() -> {
+			try {
+				drain();
+			} finally {
+				running = false;
+				callback.run();
+			}
+		});
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void drain() {
+		admissionController.startDraining();
+
+		List<Session> sessions = new ArrayList<>(sessionStore.stream().toList());
+
+		if (sessions.isEmpty()) return;
+
+		// Paced over the drain duration, so the remaining nodes see a steady trickle of IDENTIFYs rather than one spike
+		Collections.shuffle(sessions);
+		long interval = Math.max(1, gatewayConfig.getDrainWaveInterval());
+		long waves = Math.max(1, gatewayConfig.getDrainDuration() / interval);
+		int waveSize = (int) Math.ceil((double) sessions.size() / waves);
+
+		log.info("Draining {} gateway sessions in waves of {}", sessions.size(), waveSize);
+
+		try {
+			for (int from = 0; from < sessions.size(); from += waveSize) {
+				if (from > 0) Thread.sleep(interval);
+
+				sessionStore.execute(sessions.subList(from, Math.min(from + waveSize, sessions.size())), this::reconnect);
+			}
+
+			long deadline = System.currentTimeMillis() + gatewayConfig.getDrainFlushTimeout();
+
+			while (sessionStore.size() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(FLUSH_POLL_INTERVAL);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		log.info("Gateway drained, {} sessions still open", sessionStore.size());
+	}
+
+	private void reconnect(Session session) throws IOException {
+		session.send(gatewayCodec.encode(session, new ReconnectDTO()), true);
+		session.getOutboundQueue().closeAfterFlush(CloseStatus.SERVICE_RESTARTED);
+	}
+}
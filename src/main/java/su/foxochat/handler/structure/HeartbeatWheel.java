@@ -0,0 +1,112 @@
+package su.foxochat.handler.structure;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import su.foxochat.constant.CloseCodeConstant;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.model.Session;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class HeartbeatWheel {
+
+	private static final long TICK_DURATION = 1000;
+
+	private static final long TIMEOUT = GatewayConstant.HEARTBEAT_INTERVAL + GatewayConstant.HEARTBEAT_TIMEOUT;
+
+	private final Set<Session>[] buckets;
+
+	private final int mask;
+
+	private final ScheduledExecutorService executor;
+
+	private long lastTick;
+
+	@SuppressWarnings("unchecked")
+	public HeartbeatWheel() {
+		int size = Integer.highestOneBit((int) (TIMEOUT / TICK_DURATION) + 2) << 1;
+
+		this.buckets = new Set[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			buckets[i] = ConcurrentHashMap.newKeySet();
+		}
+
+		this.lastTick = System.currentTimeMillis() / TICK_DURATION;
+		this.executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-heartbeat-wheel").factory());
+		executor.scheduleAtFixedRate(this::tick, TICK_DURATION, TICK_DURATION, TimeUnit.MILLISECONDS);
+	}
+
+	public void heartbeat(Session session) {
+		if (session.isReleased()) return;
+
+		long now = System.currentTimeMillis();
+		long deadline = now + TIMEOUT;
+		int bucket = (int) ((deadline / TICK_DURATION + 1) & mask);
+
+		session.setLastPingTimestamp(now);
+		// Deadline first, so a tick racing with this move sees the session as alive
+		session.setHeartbeatDeadline(deadline);
+
+		int previousBucket = session.getHeartbeatBucket();
+		if (previousBucket != bucket) {
+			if (previousBucket >= 0) buckets[previousBucket].remove(session);
+			session.setHeartbeatBucket(bucket);
+		}
+		buckets[bucket].add(session);
+	}
+
+	public void cancel(Session session) {
+		int bucket = session.getHeartbeatBucket();
+
+		if (bucket >= 0) buckets[bucket].remove(session);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// Sessions are bucketed by the tick their deadline falls into, so a tick only visits the ones about to expire
+	private void tick() {
+		long now = System.currentTimeMillis();
+		long currentTick = now / TICK_DURATION;
+
+		try {
+			for (long tick = lastTick + 1; tick <= currentTick; tick++) {
+				Iterator<Session> iterator = buckets[(int) (tick & mask)].iterator();
+
+				while (iterator.hasNext()) {
+					Session session = iterator.next();
+
+					if (session.getHeartbeatDeadline() > now) continue;
+
+					iterator.remove();
+					expire(session);
+				}
+			}
+		} catch (Exception e) {
+			log.error("Error expiring heartbeats", e);
+		}
+
+		lastTick = currentTick;
+	}
+
+	private void expire(Session session) {
+		try {
+			session.getWebSocketSession().close(CloseCodeConstant.HEARTBEAT_TIMEOUT);
+			log.debug("Session closed due to heartbeat timeout: {}", session.getWebSocketSession().getId());
+		} catch (IOException e) {
+			log.error("Error closing session: {}", session.getWebSocketSession().getId(), e);
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package su.foxochat.handler.structure;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.constant.CloseCodeConstant;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+public class OutboundQueue {
+
+	private static final int MAX_BATCH_SIZE = 64;
+
+	private static final VarHandle QUEUED_MESSAGES;
+
+	private static final VarHandle QUEUED_BYTES;
+
+	private static final VarHandle CLOSED;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			QUEUED_MESSAGES = lookup.findVarHandle(OutboundQueue.class, "queuedMessages", int.class);
+			QUEUED_BYTES = lookup.findVarHandle(OutboundQueue.class, "queuedBytes", long.class);
+			CLOSED = lookup.findVarHandle(OutboundQueue.class, "closed", boolean.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final WebSocketSession webSocketSession;
+
+	// Unbounded and lock-free, the limits are enforced through the counters below
+	private final Queue<Frame> queue = new ConcurrentLinkedQueue<>();
+
+	// Plain fields updated through VarHandles, the atomic wrappers would cost an object each per connection
+	private volatile int queuedMessages;
+
+	private volatile long queuedBytes;
+
+	private volatile boolean closed;
+
+	private final int maxMessages;
+
+	private final long maxBytes;
+
+	private final Counter droppedCounter;
+
+	private final Counter sentBytesCounter;
+
+	// Started by the first queued frame and gone once the queue is empty, so an idle connection holds no thread
+	private volatile Thread writer;
+
+	@Setter
+	private volatile ZlibStream compressor;
+
+	@Setter
+	private volatile long batchWindow;
+
+	public OutboundQueue(WebSocketSession webSocketSession, int maxMessages, long maxBytes, Counter droppedCounter, Counter sentBytesCounter) {
+		this.webSocketSession = webSocketSession;
+		this.maxMessages = maxMessages;
+		this.maxBytes = maxBytes;
+		this.droppedCounter = droppedCounter;
+		this.sentBytesCounter = sentBytesCounter;
+	}
+
+	public boolean offer(WebSocketMessage<?> message) {
+		return offer(message, false);
+	}
+
+	public boolean offer(WebSocketMessage<?> message, boolean immediate) {
+		if (closed) {
+			release(message);
+			return false;
+		}
+
+		int length = sizeOf(message);
+
+		if ((int) QUEUED_MESSAGES.getAndAdd(this, 1) >= maxMessages || (long) QUEUED_BYTES.getAndAdd(this, (long) length) + length > maxBytes) {
+			QUEUED_MESSAGES.getAndAdd(this, -1);
+			QUEUED_BYTES.getAndAdd(this, (long) -length);
+			release(message);
+			droppedCounter.increment();
+			evict();
+			return false;
+		}
+
+		queue.offer(new Frame(message, immediate, null));
+
+		// Closed while this frame was on its way in, nobody else would release it
+		if (closed) {
+			discardQueued();
+			return false;
+		}
+
+		startWriter(immediate);
+		return true;
+	}
+
+	// Closes the connection once everything queued before it has been written
+	public void closeAfterFlush(CloseStatus status) {
+		if (closed) return;
+
+		queue.offer(new Frame(null, true, status));
+		startWriter(true);
+	}
+
+	// Frames that reach the socket as queued, so shared frames can be used for them
+	public boolean isPassthrough() {
+		return compressor == null && batchWindow <= 0;
+	}
+
+	public int size() {
+		return queuedMessages;
+	}
+
+	public long getQueuedBytes() {
+		return queuedBytes;
+	}
+
+	// Also runs after an eviction, whatever is still queued holds pooled buffers
+	public void close() {
+		closed = true;
+
+		synchronized (this) {
+			// Without a writer nobody else is left to end the compressor
+			if (writer != null) writer.interrupt();
+			else if (compressor != null) compressor.end();
+		}
+
+		discardQueued();
+	}
+
+	private void discardQueued() {
+		for (Frame frame = queue.poll(); frame != null; frame = queue.poll()) {
+			take(frame);
+			release(frame.message());
+		}
+	}
+
+	private void evict() {
+		if (!CLOSED.compareAndSet(this, false, true)) return;
+
+		synchronized (this) {
+			if (writer != null) writer.interrupt();
+		}
+
+		log.debug("Session ({}) exceeded outbound queue limits, closing", webSocketSession.getId());
+
+		try {
+			webSocketSession.close(CloseCodeConstant.SLOW_CONSUMER);
+		} catch (IOException e) {
+			log.error("Error closing session: {}", webSocketSession.getId(), e);
+		}
+	}
+
+	private void startWriter(boolean immediate) {
+		Thread current = writer;
+
+		if (current != null) {
+			// Cuts a batch window short
+			if (immediate) LockSupport.unpark(current);
+			return;
+		}
+
+		synchronized (this) {
+			if (writer == null && !closed) writer = Thread.ofVirtual().name("gateway-writer-" + webSocketSession.getId()).start(this::drain);
+		}
+	}
+
+	private void drain() {
+		List<WebSocketMessage<?>> batch = new ArrayList<>();
+
+		try {
+			while (!closed) {
+				Frame frame = queue.poll();
+
+				if (frame == null) {
+					synchronized (this) {
+						writer = null;
+					}
+
+					// An offer that read writer before it was cleared did not start one, so look again after clearing it
+					if (queue.isEmpty() || !reclaimWriter()) return;
+
+					continue;
+				}
+
+				take(frame);
+
+				if (batchWindow <= 0 || frame.immediate()) {
+					send(frame);
+					continue;
+				}
+
+				// Coalesce whatever arrives within the window, an immediate frame flushes the batch early
+				batch.add(frame.message());
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindow);
+				Frame next = null;
+
+				while (batch.size() < MAX_BATCH_SIZE) {
+					next = queue.poll();
+
+					if (next == null) {
+						long remaining = deadline - System.nanoTime();
+
+						if (remaining <= 0) break;
+
+						LockSupport.parkNanos(remaining);
+
+						if (Thread.interrupted()) throw new InterruptedException();
+
+						continue;
+					}
+
+					take(next);
+
+					if (next.immediate()) break;
+
+					batch.add(next.message());
+					next = null;
+				}
+
+				send(batch.size() == 1 ? batch.getFirst() : GatewayCodec.batch(batch));
+				batch.clear();
+
+				if (next != null) send(next);
+			}
+		} catch (InterruptedException ignored) {
+		} catch (IOException e) {
+			log.debug("Error writing to session ({}): {}", webSocketSession.getId(), e.getMessage());
+		} finally {
+			synchronized (this) {
+				if (writer == Thread.currentThread()) writer = null;
+				if (closed && compressor != null) compressor.end();
+			}
+		}
+	}
+
+	// Lost to a writer started by offer in the meantime, or to close
+	private synchronized boolean reclaimWriter() {
+		if (writer != null || closed) return false;
+
+		writer = Thread.currentThread();
+		return true;
+	}
+
+	private void take(Frame frame) {
+		if (frame.message() == null) return;
+
+		QUEUED_MESSAGES.getAndAdd(this, -1);
+		QUEUED_BYTES.getAndAdd(this, (long) -sizeOf(frame.message()));
+	}
+
+	private void send(Frame frame) throws IOException {
+		if (frame.closeStatus() == null) {
+			send(frame.message());
+			return;
+		}
+
+		closed = true;
+		webSocketSession.close(frame.closeStatus());
+	}
+
+	private void send(WebSocketMessage<?> message) throws IOException {
+		if (!webSocketSession.isOpen()) {
+			release(message);
+			return;
+		}
+
+		// Compression stays on this thread, the zlib context must see frames in send order
+		if (compressor != null) message = compressor.compress(message);
+
+		webSocketSession.sendMessage(message);
+		sentBytesCounter.increment(message instanceof TextMessage textMessage ? encodedLength(textMessage.getPayload()) : message.getPayloadLength());
+	}
+
+	private static void release(WebSocketMessage<?> message) {
+		if (message instanceof SharedTextMessage sharedMessage) sharedMessage.release();
+	}
+
+	// What the frame takes on the wire, without TextMessage.getPayloadLength() encoding a copy to count it
+	private static int encodedLength(String text) {
+		int length = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			// A surrogate pair is 4 bytes, 2 per char
+			length += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+		}
+
+		return length;
+	}
+
+	private static int sizeOf(WebSocketMessage<?> message) {
+		// Chars as an estimate for the queue limits, exact UTF-8 length is only worth it for the sent counter
+		if (message instanceof TextMessage textMessage) return textMessage.getPayload().length();
+
+		return message.getPayloadLength();
+	}
+
+	private record Frame(WebSocketMessage<?> message, boolean immediate, CloseStatus closeStatus) {
+	}
+}
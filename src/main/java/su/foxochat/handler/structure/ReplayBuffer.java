@@ -0,0 +1,62 @@
+package su.foxochat.handler.structure;
+
+import su.foxochat.dto.internal.SerializedEventDTO;
+
+import java.io.IOException;
+
+public class ReplayBuffer {
+
+	private final int capacity;
+
+	private int[] sequences;
+
+	private SerializedEventDTO[] events;
+
+	private int head;
+
+	private int size;
+
+	public ReplayBuffer(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void add(int sequence, SerializedEventDTO event) {
+		if (capacity <= 0) return;
+
+		// Allocated on the first replayable dispatch, READY is not one, so sessions that only got READY never pay for the ring
+		if (events == null) {
+			sequences = new int[capacity];
+			events = new SerializedEventDTO[capacity];
+		}
+
+		int index = (head + size) % capacity;
+		sequences[index] = sequence;
+		events[index] = event;
+
+		if (size < capacity) {
+			size++;
+		} else {
+			head = (head + 1) % capacity;
+		}
+	}
+
+	public boolean canReplayAfter(int sequence, int currentSequence) {
+		if (sequence >= currentSequence - 1) return true;
+		if (size == 0) return false;
+
+		return sequences[head] <= sequence + 1;
+	}
+
+	public void replayAfter(int sequence, Replayer replayer) throws IOException {
+		for (int i = 0; i < size; i++) {
+			int index = (head + i) % capacity;
+
+			if (sequences[index] > sequence) replayer.replay(events[index], sequences[index]);
+		}
+	}
+
+	public interface Replayer {
+
+		void replay(SerializedEventDTO event, int sequence) throws IOException;
+	}
+}
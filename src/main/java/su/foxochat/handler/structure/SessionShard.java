@@ -0,0 +1,76 @@
+package su.foxochat.handler.structure;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import su.foxochat.model.Session;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+@Slf4j
+@Getter
+public class SessionShard {
+
+	// Written only by the shard's writer, other threads only read them
+	private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<String, Session> detachedSessions = new ConcurrentHashMap<>();
+
+	private final BlockingQueue<Task> mailbox = new LinkedBlockingQueue<>();
+
+	private final Thread writer;
+
+	public SessionShard(int index) {
+		this.writer = Thread.ofVirtual().name("gateway-shard-" + index).start(this::run);
+	}
+
+	public void execute(Task task) {
+		mailbox.add(task);
+	}
+
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+
+		execute(() -> {
+			try {
+				future.complete(task.call());
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+			}
+		});
+
+		return future;
+	}
+
+	public int getPendingTasks() {
+		return mailbox.size();
+	}
+
+	public void close() {
+		writer.interrupt();
+	}
+
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Task task = mailbox.take();
+
+				try {
+					task.run();
+				} catch (Exception e) {
+					log.error("Error running task on {}", writer.getName(), e);
+				}
+			}
+		} catch (InterruptedException ignored) {
+		}
+	}
+
+	@FunctionalInterface
+	public interface Task {
+
+		void run() throws Exception;
+	}
+}
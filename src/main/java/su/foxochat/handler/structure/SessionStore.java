@@ -0,0 +1,143 @@
+package su.foxochat.handler.structure;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.config.GatewayConfig;
+import su.foxochat.constant.AttributeConstant;
+import su.foxochat.model.Session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class SessionStore {
+
+	private final SessionShard[] shards;
+
+	public SessionStore(GatewayConfig gatewayConfig) {
+		int count = gatewayConfig.getSessionShards() > 0 ? gatewayConfig.getSessionShards() : Runtime.getRuntime().availableProcessors();
+
+		this.shards = new SessionShard[count];
+		for (int i = 0; i < count; i++) {
+			shards[i] = new SessionShard(i);
+		}
+	}
+
+	// Bound to the connection, so inbound frames find their session without a shared lookup
+	public Session get(WebSocketSession webSocketSession) {
+		return (Session) webSocketSession.getAttributes().get(AttributeConstant.SESSION);
+	}
+
+	public SessionShard getShard(String sessionId) {
+		return shards[Math.floorMod(sessionId.hashCode(), shards.length)];
+	}
+
+	public SessionShard getShard(Session session) {
+		return getShard(session.getId());
+	}
+
+	public void add(Session session) {
+		session.getWebSocketSession().getAttributes().put(AttributeConstant.SESSION, session);
+
+		SessionShard shard = getShard(session);
+		shard.execute(() -> shard.getSessions().put(session.getId(), session));
+	}
+
+	public void remove(Session session) {
+		SessionShard shard = getShard(session);
+		shard.execute(() -> shard.getSessions().remove(session.getId(), session));
+	}
+
+	// One task per shard rather than per session, so a large fan-out costs a handful of handoffs
+	public void execute(Collection<Session> sessions, SessionTask task) {
+		execute(sessions, session -> true, task, () -> {
+		});
+	}
+
+	// Sessions failing the filter are left out before any shard handoff, completion runs once after the last shard has gone through its group
+	@SuppressWarnings("unchecked")
+	public void execute(Collection<Session> sessions, Predicate<Session> filter, SessionTask task, Runnable completion) {
+		List<Session>[] groups = new List[shards.length];
+
+		for (Session session : sessions) {
+			if (!filter.test(session)) continue;
+
+			int index = Math.floorMod(session.getId().hashCode(), shards.length);
+
+			if (groups[index] == null) groups[index] = new ArrayList<>();
+
+			groups[index].add(session);
+		}
+
+		AtomicInteger remaining = new AtomicInteger((int) Arrays.stream(groups).filter(Objects::nonNull).count());
+
+		if (remaining.get() == 0) {
+			completion.run();
+			return;
+		}
+
+		for (int i = 0; i < shards.length; i++) {
+			List<Session> group = groups[i];
+
+			if (group == null) continue;
+
+			shards[i].execute(() -> {
+				try {
+					for (Session session : group) {
+						try {
+							task.run(session);
+						} catch (Exception e) {
+							log.error("Error running task for session ({})", session.getId(), e);
+						}
+					}
+				} finally {
+					if (remaining.decrementAndGet() == 0) completion.run();
+				}
+			});
+		}
+	}
+
+	// Attached or detached, read without going through the shards
+	public Session find(String sessionId) {
+		SessionShard shard = getShard(sessionId);
+		Session session = shard.getSessions().get(sessionId);
+
+		return session != null ? session : shard.getDetachedSessions().get(sessionId);
+	}
+
+	public Stream<Session> streamDetached() {
+		return Arrays.stream(shards).flatMap(shard -> shard.getDetachedSessions().values().stream());
+	}
+
+	public Stream<Session> stream() {
+		return Arrays.stream(shards).flatMap(shard -> shard.getSessions().values().stream());
+	}
+
+	public int size() {
+		return Arrays.stream(shards).mapToInt(shard -> shard.getSessions().size()).sum();
+	}
+
+	public int getPendingTasks() {
+		return Arrays.stream(shards).mapToInt(SessionShard::getPendingTasks).sum();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		for (SessionShard shard : shards) shard.close();
+	}
+
+	@FunctionalInterface
+	public interface SessionTask {
+
+		void run(Session session) throws Exception;
+	}
+}
@@ -0,0 +1,197 @@
+package su.foxochat.handler.structure;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// Per-session primitive state kept in struct-of-arrays pages, instead of as fields on every Session
+// A handle is the slot index with the slot's generation in the high bits, releasing a slot bumps the generation
+@Component
+public class SessionTable {
+
+	private static final int PAGE_SHIFT = 12;
+
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+	// Pages never move once added, so readers only need the array of them
+	private volatile Page[] pages = new Page[0];
+
+	// Released slots are reused oldest first
+	private int[] released = new int[PAGE_SIZE];
+
+	private int releasedHead;
+
+	private int releasedCount;
+
+	private int allocated;
+
+	public synchronized long allocate() {
+		int index;
+
+		if (releasedCount > 0) {
+			index = released[releasedHead];
+			releasedHead = (releasedHead + 1) % released.length;
+			releasedCount--;
+		} else {
+			index = allocated++;
+
+			if (index >>> PAGE_SHIFT == pages.length) {
+				Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+				grown[pages.length] = new Page();
+				pages = grown;
+			}
+		}
+
+		Page page = page(index);
+		int slot = index & PAGE_MASK;
+
+		page.userIds[slot] = 0;
+		page.lastPings[slot] = 0;
+		page.connectedAts[slot] = 0;
+		page.sequences[slot] = 0;
+		LONGS.setVolatile(page.heartbeatDeadlines, slot, 0L);
+		INTS.setVolatile(page.heartbeatBuckets, slot, -1);
+		return (long) (int) INTS.getVolatile(page.generations, slot) << 32 | index;
+	}
+
+	public synchronized void release(long handle) {
+		if (!isCurrent(handle)) return;
+
+		int index = (int) handle;
+
+		// Bumped before the slot can be handed out again, so every stale handle stops matching
+		INTS.setVolatile(page(index).generations, index & PAGE_MASK, generation(handle) + 1);
+
+		if (releasedCount == released.length) {
+			int[] grown = new int[released.length * 2];
+
+			for (int i = 0; i < releasedCount; i++) grown[i] = released[(releasedHead + i) % released.length];
+
+			released = grown;
+			releasedHead = 0;
+		}
+
+		released[(releasedHead + releasedCount) % released.length] = index;
+		releasedCount++;
+	}
+
+	public synchronized int size() {
+		return allocated - releasedCount;
+	}
+
+	public int getCapacity() {
+		return pages.length * PAGE_SIZE;
+	}
+
+	// Reads through a released handle return the defaults of a fresh slot, never another session's values
+	public long getUserId(long handle) {
+		long userId = page(handle).userIds[slot(handle)];
+
+		return isCurrentAfterRead(handle) ? userId : 0;
+	}
+
+	// Writes are only safe while the caller keeps the handle from being released, Session does it under its monitor
+	public void setUserId(long handle, long userId) {
+		if (isCurrent(handle)) page(handle).userIds[slot(handle)] = userId;
+	}
+
+	public long getLastPing(long handle) {
+		long lastPing = page(handle).lastPings[slot(handle)];
+
+		return isCurrentAfterRead(handle) ? lastPing : 0;
+	}
+
+	public void setLastPing(long handle, long lastPing) {
+		if (isCurrent(handle)) page(handle).lastPings[slot(handle)] = lastPing;
+	}
+
+	public long getConnectedAt(long handle) {
+		long connectedAt = page(handle).connectedAts[slot(handle)];
+
+		return isCurrentAfterRead(handle) ? connectedAt : 0;
+	}
+
+	public void setConnectedAt(long handle, long connectedAt) {
+		if (isCurrent(handle)) page(handle).connectedAts[slot(handle)] = connectedAt;
+	}
+
+	// Only touched by the writer of the shard owning the session
+	public int getSequence(long handle) {
+		int sequence = page(handle).sequences[slot(handle)];
+
+		return isCurrentAfterRead(handle) ? sequence : 0;
+	}
+
+	public void increaseSequence(long handle) {
+		if (isCurrent(handle)) page(handle).sequences[slot(handle)]++;
+	}
+
+	// Read by the heartbeat wheel's tick while handlers move it, hence the volatile access
+	public long getHeartbeatDeadline(long handle) {
+		long deadline = (long) LONGS.getVolatile(page(handle).heartbeatDeadlines, slot(handle));
+
+		return isCurrentAfterRead(handle) ? deadline : 0;
+	}
+
+	public void setHeartbeatDeadline(long handle, long deadline) {
+		if (isCurrent(handle)) LONGS.setVolatile(page(handle).heartbeatDeadlines, slot(handle), deadline);
+	}
+
+	public int getHeartbeatBucket(long handle) {
+		int bucket = (int) INTS.getVolatile(page(handle).heartbeatBuckets, slot(handle));
+
+		return isCurrentAfterRead(handle) ? bucket : -1;
+	}
+
+	public void setHeartbeatBucket(long handle, int bucket) {
+		if (isCurrent(handle)) INTS.setVolatile(page(handle).heartbeatBuckets, slot(handle), bucket);
+	}
+
+	public boolean isCurrent(long handle) {
+		return (int) INTS.getVolatile(page(handle).generations, slot(handle)) == generation(handle);
+	}
+
+	// The value must be loaded before the generation, otherwise a reused slot could pass the check
+	private boolean isCurrentAfterRead(long handle) {
+		VarHandle.loadLoadFence();
+
+		return isCurrent(handle);
+	}
+
+	private static int generation(long handle) {
+		return (int) (handle >>> 32);
+	}
+
+	private static int slot(long handle) {
+		return (int) handle & PAGE_MASK;
+	}
+
+	private Page page(long handle) {
+		return pages[(int) handle >>> PAGE_SHIFT];
+	}
+
+	private static class Page {
+
+		private final long[] userIds = new long[PAGE_SIZE];
+
+		private final long[] lastPings = new long[PAGE_SIZE];
+
+		private final long[] connectedAts = new long[PAGE_SIZE];
+
+		private final long[] heartbeatDeadlines = new long[PAGE_SIZE];
+
+		private final int[] sequences = new int[PAGE_SIZE];
+
+		private final int[] heartbeatBuckets = new int[PAGE_SIZE];
+
+		private final int[] generations = new int[PAGE_SIZE];
+	}
+}
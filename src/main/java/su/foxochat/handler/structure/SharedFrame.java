@@ -0,0 +1,106 @@
+package su.foxochat.handler.structure;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// An event encoded once into a pooled buffer as [prefix][suffix], shared by every recipient of a dispatch
+public class SharedFrame {
+
+	// Room left for the widest sequence number
+	private static final int MAX_SEQUENCE_LENGTH = 10;
+
+	private final PooledByteBuffer pooled;
+
+	private final ByteBuffer buffer;
+
+	private final int prefixLength;
+
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	private SharedFrame(PooledByteBuffer pooled, int prefixLength) {
+		this.pooled = pooled;
+		this.buffer = pooled.getBuffer().asReadOnlyBuffer();
+		this.prefixLength = prefixLength;
+	}
+
+	// Returns null when the event does not fit a pool buffer, those go out as plain text
+	public static SharedFrame encode(ByteBufferPool pool, String prefix, String suffix) {
+		PooledByteBuffer pooled = pool.allocate();
+		ByteBuffer buffer = pooled.getBuffer();
+		buffer.clear();
+
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+		if (!encode(encoder, prefix, buffer)) {
+			pooled.close();
+			return null;
+		}
+
+		int prefixLength = buffer.position();
+
+		if (!encode(encoder.reset(), suffix, buffer) || buffer.remaining() < MAX_SEQUENCE_LENGTH) {
+			pooled.close();
+			return null;
+		}
+
+		buffer.flip();
+		return new SharedFrame(pooled, prefixLength);
+	}
+
+	public boolean retain() {
+		int count;
+
+		do {
+			count = references.get();
+
+			if (count == 0) return false;
+		} while (!references.compareAndSet(count, count + 1));
+
+		return true;
+	}
+
+	public void release() {
+		if (references.decrementAndGet() == 0) pooled.close();
+	}
+
+	public int length(int sequence) {
+		return buffer.limit() + digits(sequence);
+	}
+
+	// Copies the frame with the recipient's sequence spliced in, the caller holds a reference
+	public void writeTo(ByteBuffer target, int sequence) {
+		target.put(buffer.duplicate().limit(prefixLength));
+
+		int position = target.position() + digits(sequence);
+		for (int value = sequence, i = position - 1; i >= target.position(); i--, value /= 10) {
+			target.put(i, (byte) ('0' + value % 10));
+		}
+
+		target.position(position);
+		target.put(buffer.duplicate().position(prefixLength));
+	}
+
+	private static boolean encode(CharsetEncoder encoder, String value, ByteBuffer buffer) {
+		CoderResult result = encoder.encode(CharBuffer.wrap(value), buffer, true);
+
+		return !result.isOverflow() && !encoder.flush(buffer).isOverflow();
+	}
+
+	private static int digits(int value) {
+		int digits = 1;
+
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+
+		return digits;
+	}
+}
@@ -0,0 +1,43 @@
+package su.foxochat.handler.structure;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+
+// One recipient's reference to a shared frame, released once it is copied out or dropped
+public class SharedTextMessage implements WebSocketMessage<SharedFrame> {
+
+	private final SharedFrame frame;
+
+	@Getter
+	private final int sequence;
+
+	public SharedTextMessage(SharedFrame frame, int sequence) {
+		this.frame = frame;
+		this.sequence = sequence;
+	}
+
+	@Override
+	public SharedFrame getPayload() {
+		return frame;
+	}
+
+	@Override
+	public int getPayloadLength() {
+		return frame.length(sequence);
+	}
+
+	@Override
+	public boolean isLast() {
+		return true;
+	}
+
+	public void writeTo(ByteBuffer target) {
+		frame.writeTo(target, sequence);
+	}
+
+	public void release() {
+		frame.release();
+	}
+}
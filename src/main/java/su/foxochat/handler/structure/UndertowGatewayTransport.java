@@ -0,0 +1,161 @@
+package su.foxochat.handler.structure;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedBinaryMessage;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.CloseMessage;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+
+// Serves the gateway straight from Undertow's WebSocket API, ahead of the servlet chain, so dispatches can use pooled shared frames
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "gateway.transport", havingValue = "undertow")
+public class UndertowGatewayTransport implements WebSocketConnectionCallback {
+
+	private static final int MAX_MESSAGE_SIZE = 65536;
+
+	private final EventHandler eventHandler;
+
+	private final AdmissionController admissionController;
+
+	public UndertowGatewayTransport(@Lazy EventHandler eventHandler, AdmissionController admissionController) {
+		this.eventHandler = eventHandler;
+		this.admissionController = admissionController;
+	}
+
+	// Upgrades on the gateway path are taken here, everything else falls through to the servlet chain
+	public HttpHandler wrap(HttpHandler next) {
+		WebSocketProtocolHandshakeHandler handshakeHandler = new WebSocketProtocolHandshakeHandler(this, next);
+
+		return exchange -> {
+			if (!"/".equals(exchange.getRequestPath()) || !isUpgrade(exchange)) {
+				next.handleRequest(exchange);
+				return;
+			}
+
+			if (admit(exchange)) handshakeHandler.handleRequest(exchange);
+		};
+	}
+
+	@Override
+	public void onConnect(WebSocketHttpExchange exchange, WebSocketChannel channel) {
+		UndertowWebSocketSession session = new UndertowWebSocketSession(exchange, channel, MAX_MESSAGE_SIZE);
+
+		channel.getReceiveSetter().set(new ReceiveListener(session));
+		channel.addCloseTask(c -> closed(session));
+
+		eventHandler.afterConnectionEstablished(session);
+		channel.resumeReceives();
+	}
+
+	private boolean admit(HttpServerExchange exchange) {
+		String address = AdmissionController.getClientAddress(exchange.getSourceAddress());
+		HttpStatus status = admissionController.checkHandshake(address);
+
+		if (status == null) return true;
+
+		exchange.setStatusCode(status.value());
+
+		if (status == HttpStatus.TOO_MANY_REQUESTS) {
+			exchange.getResponseHeaders().put(Headers.RETRY_AFTER, admissionController.getRetryAfterHeader());
+			log.debug("Rejected handshake from {}, rate limited", address);
+		}
+
+		exchange.endExchange();
+		return false;
+	}
+
+	private void closed(UndertowWebSocketSession session) {
+		CloseStatus status = session.getCloseStatus() != null ? session.getCloseStatus() : CloseStatus.NO_CLOSE_FRAME;
+
+		try {
+			eventHandler.afterConnectionClosed(session, status);
+		} catch (Exception e) {
+			log.error("Error closing session: {}", session.getId(), e);
+		}
+	}
+
+	private static boolean isUpgrade(HttpServerExchange exchange) {
+		return "websocket".equalsIgnoreCase(exchange.getRequestHeaders().getFirst(Headers.UPGRADE));
+	}
+
+	private class ReceiveListener extends AbstractReceiveListener {
+
+		private final UndertowWebSocketSession session;
+
+		private ReceiveListener(UndertowWebSocketSession session) {
+			this.session = session;
+		}
+
+		@Override
+		protected long getMaxTextBufferSize() {
+			return MAX_MESSAGE_SIZE;
+		}
+
+		@Override
+		protected long getMaxBinaryBufferSize() {
+			return MAX_MESSAGE_SIZE;
+		}
+
+		@Override
+		protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) {
+			handle(channel, new TextMessage(message.getData()));
+		}
+
+		@Override
+		protected void onFullBinaryMessage(WebSocketChannel channel, BufferedBinaryMessage message) {
+			var data = message.getData();
+
+			try {
+				handle(channel, new BinaryMessage(WebSockets.mergeBuffers(data.getResource())));
+			} finally {
+				data.free();
+			}
+		}
+
+		@Override
+		protected void onFullPongMessage(WebSocketChannel channel, BufferedBinaryMessage message) {
+			message.getData().free();
+			handle(channel, new PongMessage(ByteBuffer.allocate(0)));
+		}
+
+		@Override
+		protected void onCloseMessage(CloseMessage message, WebSocketChannel channel) {
+			if (session.getCloseStatus() == null) session.setCloseStatus(new CloseStatus(message.getCode(), message.getReason()));
+		}
+
+		// Handlers block on the database, so frames are handled off the IO thread, one at a time per connection
+		private void handle(WebSocketChannel channel, WebSocketMessage<?> message) {
+			channel.suspendReceives();
+
+			Thread.ofVirtual().start(() -> {
+				try {
+					eventHandler.handleMessage(session, message);
+				} catch (Exception e) {
+					log.error("Error handling message for session ({})", session.getId(), e);
+				} finally {
+					channel.resumeReceives();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package su.foxochat.handler.structure;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.xnio.IoUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Presents an Undertow channel to EventHandler and the handlers the same way Spring's adapter would
+public class UndertowWebSocketSession implements WebSocketSession {
+
+	private static final AtomicLong IDS = new AtomicLong();
+
+	@Getter
+	private final String id = Long.toString(IDS.incrementAndGet(), 36);
+
+	@Getter
+	private final WebSocketChannel channel;
+
+	@Getter
+	private final URI uri;
+
+	// Only ever holds the gateway Session
+	@Getter
+	@NonNull
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>(1);
+
+	@Getter
+	private final Principal principal;
+
+	@Getter
+	@Setter
+	private int textMessageSizeLimit;
+
+	@Getter
+	@Setter
+	private int binaryMessageSizeLimit;
+
+	// Either side's close frame, whichever came first
+	@Getter
+	@Setter
+	private volatile CloseStatus closeStatus;
+
+	public UndertowWebSocketSession(WebSocketHttpExchange exchange, WebSocketChannel channel, int messageSizeLimit) {
+		String query = exchange.getQueryString();
+
+		this.channel = channel;
+		this.uri = URI.create(query == null || query.isEmpty() ? exchange.getRequestURI() : exchange.getRequestURI() + "?" + query);
+		this.principal = exchange.getUserPrincipal();
+		this.textMessageSizeLimit = messageSizeLimit;
+		this.binaryMessageSizeLimit = messageSizeLimit;
+	}
+
+	// Nothing past the handshake reads them, and a copy costs about a KiB per connection
+	@Override
+	@NonNull
+	public HttpHeaders getHandshakeHeaders() {
+		return HttpHeaders.EMPTY;
+	}
+
+	public ByteBufferPool getBufferPool() {
+		return channel.getBufferPool();
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return channel.getDestinationAddress();
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return channel.getSourceAddress();
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return channel.getSubProtocol();
+	}
+
+	@Override
+	@NonNull
+	public List<WebSocketExtension> getExtensions() {
+		return List.of();
+	}
+
+	@Override
+	public void sendMessage(@NonNull WebSocketMessage<?> message) throws IOException {
+		switch (message) {
+			case SharedTextMessage sharedMessage -> sendShared(sharedMessage);
+			case TextMessage textMessage -> WebSockets.sendTextBlocking(textMessage.getPayload(), channel);
+			case BinaryMessage binaryMessage -> WebSockets.sendBinaryBlocking(binaryMessage.getPayload(), channel);
+			case PingMessage pingMessage -> WebSockets.sendPingBlocking(pingMessage.getPayload(), channel);
+			case PongMessage pongMessage -> WebSockets.sendPongBlocking(pongMessage.getPayload(), channel);
+			default -> throw new IllegalStateException("Unexpected WebSocketMessage type: " + message);
+		}
+	}
+
+	// The shared frame is copied into a pooled buffer of this channel with the sequence spliced in, then handed to Undertow
+	private void sendShared(SharedTextMessage message) throws IOException {
+		PooledByteBuffer pooled = channel.getBufferPool().allocate();
+
+		try {
+			ByteBuffer buffer = pooled.getBuffer();
+			buffer.clear();
+
+			try {
+				message.writeTo(buffer);
+			} finally {
+				message.release();
+			}
+
+			buffer.flip();
+
+			PooledByteBuffer payload = pooled;
+			pooled = null;
+			WebSockets.sendTextBlocking(payload, channel);
+		} finally {
+			if (pooled != null) pooled.close();
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen() && !channel.isCloseFrameSent();
+	}
+
+	@Override
+	public void close() throws IOException {
+		close(CloseStatus.NORMAL);
+	}
+
+	@Override
+	public void close(@NonNull CloseStatus status) throws IOException {
+		if (!isOpen()) return;
+
+		if (closeStatus == null) closeStatus = status;
+
+		try {
+			WebSockets.sendCloseBlocking(status.getCode(), status.getReason(), channel);
+		} finally {
+			IoUtils.safeClose(channel);
+		}
+	}
+}
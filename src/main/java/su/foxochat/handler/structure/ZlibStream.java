@@ -0,0 +1,53 @@
+package su.foxochat.handler.structure;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+public class ZlibStream {
+
+	private final Deflater deflater;
+
+	private final int flushMode;
+
+	private final byte[] buffer = new byte[8192];
+
+	public ZlibStream(int level, boolean contextTakeover) {
+		this.deflater = new Deflater(level);
+		// FULL_FLUSH keeps one valid zlib stream but drops the shared dictionary after every frame
+		this.flushMode = contextTakeover ? Deflater.SYNC_FLUSH : Deflater.FULL_FLUSH;
+	}
+
+	public BinaryMessage compress(WebSocketMessage<?> message) {
+		byte[] input;
+
+		if (message instanceof TextMessage textMessage) {
+			input = textMessage.getPayload().getBytes(StandardCharsets.UTF_8);
+		} else {
+			ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+			input = new byte[payload.remaining()];
+			payload.get(input);
+		}
+
+		deflater.setInput(input);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+		int length;
+
+		do {
+			length = deflater.deflate(buffer, 0, buffer.length, flushMode);
+			output.write(buffer, 0, length);
+		} while (length == buffer.length);
+
+		return new BinaryMessage(output.toByteArray());
+	}
+
+	public void end() {
+		deflater.end();
+	}
+}
@@ -0,0 +1,48 @@
+package su.foxochat.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import su.foxochat.config.GatewayConfig;
+import su.foxochat.exception.gateway.AdminUnauthorizedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@Slf4j
+@Component
+public class AdminInterceptor implements HandlerInterceptor {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final GatewayConfig gatewayConfig;
+
+	public AdminInterceptor(GatewayConfig gatewayConfig) {
+		this.gatewayConfig = gatewayConfig;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) throws AdminUnauthorizedException {
+		String adminToken = gatewayConfig.getAdminToken();
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+		// No token configured keeps the endpoints closed
+		if (adminToken == null || adminToken.isEmpty() || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+			throw new AdminUnauthorizedException();
+		}
+
+		byte[] expected = adminToken.getBytes(StandardCharsets.UTF_8);
+		byte[] actual = authorization.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+
+		if (!MessageDigest.isEqual(expected, actual)) {
+			log.warn("Rejected admin request to {} from {}", request.getRequestURI(), request.getRemoteAddr());
+			throw new AdminUnauthorizedException();
+		}
+
+		return true;
+	}
+}
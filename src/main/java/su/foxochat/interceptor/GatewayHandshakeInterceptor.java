@@ -0,0 +1,46 @@
+package su.foxochat.interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import su.foxochat.handler.structure.AdmissionController;
+
+import java.util.Map;
+
+@Slf4j
+@Component
+public class GatewayHandshakeInterceptor implements HandshakeInterceptor {
+
+	private final AdmissionController admissionController;
+
+	public GatewayHandshakeInterceptor(AdmissionController admissionController) {
+		this.admissionController = admissionController;
+	}
+
+	@Override
+	public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response, @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+		String address = AdmissionController.getClientAddress(request.getRemoteAddress());
+		HttpStatus status = admissionController.checkHandshake(address);
+
+		if (status == null) return true;
+
+		response.setStatusCode(status);
+
+		if (status == HttpStatus.TOO_MANY_REQUESTS) {
+			response.getHeaders().set(HttpHeaders.RETRY_AFTER, admissionController.getRetryAfterHeader());
+			log.debug("Rejected handshake from {}, rate limited", address);
+		}
+
+		return false;
+	}
+
+	@Override
+	public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response, @NonNull WebSocketHandler wsHandler, Exception exception) {
+	}
+}
@@ -10,7 +10,8 @@ import su.foxochat.exception.member.MissingPermissionsException;
 @Getter
 @Entity
 @Table(name = "members", indexes = {
-		@Index(name = "idx_member_user_channel", columnList = "user_id, channel_id")
+		@Index(name = "idx_member_user_channel", columnList = "user_id, channel_id"),
+		@Index(name = "idx_member_channel_id", columnList = "channel_id")
 })
 public class Member {
 
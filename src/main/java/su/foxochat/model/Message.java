@@ -11,7 +11,8 @@ import java.util.stream.Collectors;
 @Getter
 @Entity
 @Table(name = "messages", indexes = {
-		@Index(name = "idx_message_id_channel_id", columnList = "id, channel_id")
+		@Index(name = "idx_message_id_channel_id", columnList = "id, channel_id"),
+		@Index(name = "idx_message_channel_id_id", columnList = "channel_id, id")
 })
 public class Message {
 
@@ -1,31 +1,183 @@
 package su.foxochat.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.handler.structure.OutboundQueue;
+import su.foxochat.handler.structure.ReplayBuffer;
+import su.foxochat.handler.structure.SessionTable;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
 public class Session {
 
-	private long userId;
+	private final String id = UUID.randomUUID().toString();
+
+	// Slot holding userId, connection time, last ping, sequence and heartbeat state in the session table
+	// Reads through it once released return slot defaults, writes take this monitor so release cannot slip in between
+	private final long handle;
+
+	@Getter(AccessLevel.NONE)
+	private final SessionTable table;
+
+	@Setter(AccessLevel.NONE)
+	private volatile boolean released;
 
-	private long lastPingTimestamp;
+	private volatile long intents = GatewayConstant.Intent.ALL;
 
-	private int sequence;
+	private GatewayConstant.Encoding encoding = GatewayConstant.Encoding.JSON;
 
 	private WebSocketSession webSocketSession;
 
-	public Session(WebSocketSession webSocketSession) {
-		this.lastPingTimestamp = System.currentTimeMillis();
+	private OutboundQueue outboundQueue;
+
+	private final ReplayBuffer replayBuffer;
+
+	private final Set<Long> channels = ConcurrentHashMap.newKeySet();
+
+	// Most sessions never subscribe, the set is created on the first SUBSCRIBE
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private volatile Set<Long> subscriptions;
+
+	private volatile boolean attached = true;
+
+	private volatile long detachedAt;
+
+	// Bumped on every detach, an expiry only applies to the detach it was scheduled for
+	@Setter(AccessLevel.NONE)
+	private volatile int detaches;
+
+	// Force-closed sessions are discarded on disconnect instead of being kept for RESUME
+	private volatile boolean terminated;
+
+	public Session(SessionTable table, WebSocketSession webSocketSession, OutboundQueue outboundQueue, ReplayBuffer replayBuffer) {
+		this.table = table;
+		this.handle = table.allocate();
+		table.setLastPing(handle, System.currentTimeMillis());
+		table.setConnectedAt(handle, System.currentTimeMillis());
 		this.webSocketSession = webSocketSession;
+		this.outboundQueue = outboundQueue;
+		this.replayBuffer = replayBuffer;
+	}
+
+	public Set<Long> getSubscriptions() {
+		Set<Long> set = subscriptions;
+
+		return set != null ? set : Collections.emptySet();
+	}
+
+	public void addSubscription(long channelId) {
+		Set<Long> set = subscriptions;
+
+		if (set == null) {
+			synchronized (this) {
+				if (subscriptions == null) subscriptions = ConcurrentHashMap.newKeySet();
+
+				set = subscriptions;
+			}
+		}
+
+		set.add(channelId);
+	}
+
+	public GatewayConstant.SessionState getState() {
+		if (!attached) return GatewayConstant.SessionState.DETACHED;
+
+		return isAuthenticated() ? GatewayConstant.SessionState.READY : GatewayConstant.SessionState.UNIDENTIFIED;
 	}
 
 	public boolean isAuthenticated() {
-		return userId != 0;
+		return getUserId() != 0;
+	}
+
+	public long getUserId() {
+		return table.getUserId(handle);
+	}
+
+	public synchronized void setUserId(long userId) {
+		table.setUserId(handle, userId);
+	}
+
+	public long getLastPingTimestamp() {
+		return table.getLastPing(handle);
+	}
+
+	public synchronized void setLastPingTimestamp(long lastPingTimestamp) {
+		table.setLastPing(handle, lastPingTimestamp);
+	}
+
+	public long getConnectedAt() {
+		return table.getConnectedAt(handle);
+	}
+
+	public long getHeartbeatDeadline() {
+		return table.getHeartbeatDeadline(handle);
+	}
+
+	public synchronized void setHeartbeatDeadline(long heartbeatDeadline) {
+		table.setHeartbeatDeadline(handle, heartbeatDeadline);
+	}
+
+	public int getHeartbeatBucket() {
+		return table.getHeartbeatBucket(handle);
+	}
+
+	public synchronized void setHeartbeatBucket(int heartbeatBucket) {
+		table.setHeartbeatBucket(handle, heartbeatBucket);
+	}
+
+	// Only touched by the writer of the shard owning this session
+	public int getSequence() {
+		return table.getSequence(handle);
+	}
+
+	public boolean hasIntent(long bit) {
+		return bit == 0 || (intents & bit) != 0;
+	}
+
+	public synchronized void increaseSequence() {
+		table.increaseSequence(handle);
+	}
+
+	// Called once the session is out of every index, its slot goes back to the table
+	public synchronized void release() {
+		if (released) return;
+
+		released = true;
+		table.release(handle);
+	}
+
+	public boolean send(WebSocketMessage<?> message) {
+		return send(message, false);
+	}
+
+	public boolean send(WebSocketMessage<?> message, boolean immediate) {
+		return attached && outboundQueue.offer(message, immediate);
+	}
+
+	public void attach(WebSocketSession webSocketSession, OutboundQueue outboundQueue, GatewayConstant.Encoding encoding) {
+		this.webSocketSession = webSocketSession;
+		this.outboundQueue = outboundQueue;
+		this.encoding = encoding;
+		this.attached = true;
+
+		synchronized (this) {
+			table.setConnectedAt(handle, System.currentTimeMillis());
+		}
 	}
 
-	public void increaseSequence() {
-		this.sequence++;
+	public int detach() {
+		this.attached = false;
+		this.detachedAt = System.currentTimeMillis();
+		return ++detaches;
 	}
 }
@@ -1,9 +1,13 @@
 package su.foxochat.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import su.foxochat.dto.internal.ChannelSummaryDTO;
 import su.foxochat.model.Channel;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,7 @@ public interface ChannelRepository extends CrudRepository<Channel, Long> {
 	Optional<Channel> findById(long id);
 
 	Optional<Channel> findByName(String name);
+
+	@Query("SELECT new su.foxochat.dto.internal.ChannelSummaryDTO(c.id, c.displayName, c.name, c.type, c.flags, c.owner.id, (SELECT COUNT(mc) FROM Member mc WHERE mc.channel = c), c.createdAt, i.id, i.uuid, i.filename, i.contentType, i.flags) FROM Member m JOIN m.channel c LEFT JOIN c.icon i WHERE m.user.id = :userId")
+	List<ChannelSummaryDTO> findSummariesByMemberUserId(@Param("userId") long userId);
 }
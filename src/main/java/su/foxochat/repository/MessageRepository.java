@@ -5,9 +5,12 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import su.foxochat.dto.internal.AttachmentSummaryDTO;
+import su.foxochat.dto.internal.MessageSummaryDTO;
 import su.foxochat.model.Channel;
 import su.foxochat.model.Message;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,12 @@ public interface MessageRepository extends CrudRepository<Message, Long> {
 	@Query("SELECT m FROM Message m WHERE m.channel = :ch ORDER BY m.id DESC LIMIT 1")
 	Optional<Message> getLastMessageByChannel(@Param("ch") Channel channel);
 
+	@Query("SELECT new su.foxochat.dto.internal.MessageSummaryDTO(m.id, m.channel.id, m.content, a.id, a.user.id, a.permissions, a.joinedAt, m.timestamp) FROM Message m JOIN m.author a WHERE m.id IN (SELECT MAX(l.id) FROM Message l WHERE l.channel.id IN :channelIds GROUP BY l.channel.id)")
+	List<MessageSummaryDTO> findLastSummariesByChannelIds(@Param("channelIds") Collection<Long> channelIds);
+
+	@Query("SELECT new su.foxochat.dto.internal.AttachmentSummaryDTO(ma.message.id, a.id, a.uuid, a.filename, a.contentType, a.flags) FROM MessageAttachment ma JOIN ma.attachment a WHERE ma.message.id IN :messageIds")
+	List<AttachmentSummaryDTO> findAttachmentSummariesByMessageIds(@Param("messageIds") Collection<Long> messageIds);
+
 	@NonNull
 	List<Message> findAll();
 }
@@ -1,9 +1,16 @@
 package su.foxochat.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import su.foxochat.dto.internal.UserSummaryDTO;
 import su.foxochat.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +21,15 @@ public interface UserRepository extends CrudRepository<User, Long> {
 	Optional<User> findByUsername(String username);
 
 	Optional<User> findByEmail(String email);
+
+	@Query("SELECT new su.foxochat.dto.internal.UserSummaryDTO(u.id, u.displayName, u.username, u.status, u.statusUpdatedAt, u.flags, u.type, u.createdAt, a.id, a.uuid, a.filename, a.contentType, a.flags) FROM User u LEFT JOIN u.avatar a WHERE u.id IN :ids")
+	List<UserSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+	@Query("SELECT uc.contact.id FROM UserContact uc WHERE uc.user.id = :userId")
+	List<Long> findContactIdsByUserId(@Param("userId") long userId);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE User u SET u.status = :status, u.statusUpdatedAt = :updatedAt WHERE u.id IN :ids")
+	int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") int status, @Param("updatedAt") long updatedAt);
 }
@@ -0,0 +1,13 @@
+package su.foxochat.service;
+
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.api.response.GatewaySessionsDTO;
+
+public interface GatewayAdminService {
+
+	GatewaySessionsDTO getSessions(Long userId, GatewayConstant.SessionState state, int limit);
+
+	void terminateSession(String sessionId) throws Exception;
+
+	void terminateUserSessions(long userId) throws Exception;
+}
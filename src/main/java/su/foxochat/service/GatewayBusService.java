@@ -0,0 +1,25 @@
+package su.foxochat.service;
+
+import su.foxochat.dto.internal.DispatchEnvelopeDTO;
+
+import java.util.Collection;
+
+public interface GatewayBusService {
+
+	String getNodeId();
+
+	boolean isClustered();
+
+	void publish(DispatchEnvelopeDTO envelope);
+
+	void claimPresence(long userId);
+
+	// True when no other node holds the user anymore
+	boolean releasePresence(long userId);
+
+	// Of the given users, those no other node holds after this node releases them
+	Collection<Long> releasePresences(Collection<Long> userIds);
+
+	// Of the given users, those no node holds
+	Collection<Long> findUnclaimedPresences(Collection<Long> userIds);
+}
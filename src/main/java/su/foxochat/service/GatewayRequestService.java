@@ -0,0 +1,9 @@
+package su.foxochat.service;
+
+import su.foxochat.dto.gateway.request.RequestDTO;
+import su.foxochat.model.Session;
+
+public interface GatewayRequestService {
+
+	Object handle(Session session, RequestDTO request) throws Exception;
+}
@@ -1,8 +1,27 @@
 package su.foxochat.service;
 
+import su.foxochat.dto.internal.DispatchEnvelopeDTO;
+
+import java.util.Collection;
 import java.util.List;
 
 public interface GatewayService {
 
 	void sendMessageToSpecificSessions(List<Long> userIds, int opcode, Object data, String type) throws Exception;
+
+	void sendMessageToChannel(long channelId, int opcode, Object data, String type) throws Exception;
+
+	void sendMessageToChannels(Collection<Long> channelIds, int opcode, Object data, String type) throws Exception;
+
+	void sendMessageToChannelSubscribers(Collection<Long> channelIds, int opcode, Object data, String type) throws Exception;
+
+	void markChannelLazy(long channelId);
+
+	void addChannelMember(long channelId, long userId);
+
+	void removeChannelMember(long channelId, long userId);
+
+	void removeChannel(long channelId);
+
+	void deliver(DispatchEnvelopeDTO envelope) throws Exception;
 }
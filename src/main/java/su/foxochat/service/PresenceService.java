@@ -0,0 +1,12 @@
+package su.foxochat.service;
+
+import java.util.Collection;
+
+public interface PresenceService {
+
+	void connect(long userId, Collection<Long> channelIds);
+
+	void disconnect(long userId, Collection<Long> channelIds);
+
+	boolean isOnline(long userId);
+}
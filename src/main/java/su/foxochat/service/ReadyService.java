@@ -0,0 +1,9 @@
+package su.foxochat.service;
+
+import su.foxochat.dto.gateway.response.ReadyDTO;
+import su.foxochat.model.User;
+
+public interface ReadyService {
+
+	ReadyDTO build(User user);
+}
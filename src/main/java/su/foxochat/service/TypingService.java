@@ -0,0 +1,10 @@
+package su.foxochat.service;
+
+import su.foxochat.model.Session;
+
+public interface TypingService {
+
+	void start(Session session, long channelId) throws Exception;
+
+	void stop(long userId, long channelId);
+}
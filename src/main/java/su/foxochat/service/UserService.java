@@ -30,8 +30,6 @@ public interface UserService {
 
 	void confirmDelete(User user, String pathCode) throws OTPsInvalidException, OTPExpiredException;
 
-	void setStatus(long userId, int status) throws Exception;
-
 	User addContact(User user, long id) throws UserContactAlreadyExistException;
 
 	void deleteContact(User user, long id) throws UserContactNotFoundException;
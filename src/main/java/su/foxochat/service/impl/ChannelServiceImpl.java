@@ -28,8 +28,6 @@ import su.foxochat.service.MemberService;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -68,6 +66,8 @@ public class ChannelServiceImpl implements su.foxochat.service.ChannelService {
 
 		Member member = new Member(user, channel, MemberConstant.Permissions.ADMIN.getBit());
 		memberService.add(member);
+		if (channel.hasFlag(ChannelConstant.Flags.PUBLIC)) gatewayService.markChannelLazy(channel.getId());
+		gatewayService.addChannelMember(channel.getId(), user.getId());
 
 		log.debug("Channel ({}) by user ({}) created successfully", channel.getName(), user.getUsername());
 		return channel;
@@ -104,7 +104,7 @@ public class ChannelServiceImpl implements su.foxochat.service.ChannelService {
 			throw new UploadFailedException();
 		}
 
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), new ChannelDTO(channel, null), GatewayConstant.Event.CHANNEL_UPDATE.getValue());
+		gatewayService.sendMessageToChannel(channel.getId(), GatewayConstant.Opcode.DISPATCH.ordinal(), new ChannelDTO(channel, null), GatewayConstant.Event.CHANNEL_UPDATE.getValue());
 		log.debug("Channel ({}) edited successfully", channel.getName());
 		return channel;
 	}
@@ -117,7 +117,8 @@ public class ChannelServiceImpl implements su.foxochat.service.ChannelService {
 		if (!member.hasAnyPermission(MemberConstant.Permissions.ADMIN)) throw new MissingPermissionsException();
 
 		channelRepository.delete(channel);
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), Map.of("id", channel.getId()), GatewayConstant.Event.CHANNEL_DELETE.getValue());
+		gatewayService.sendMessageToChannel(channel.getId(), GatewayConstant.Opcode.DISPATCH.ordinal(), Map.of("id", channel.getId()), GatewayConstant.Event.CHANNEL_DELETE.getValue());
+		gatewayService.removeChannel(channel.getId());
 		log.debug("Channel ({}) deleted successfully", channel.getName());
 	}
 
@@ -129,9 +130,17 @@ public class ChannelServiceImpl implements su.foxochat.service.ChannelService {
 
 		Member member = new Member(user, channel, 0);
 		member.setPermissions(MemberConstant.Permissions.ATTACH_FILES, MemberConstant.Permissions.SEND_MESSAGES);
+		member = memberService.add(member);
+		if (channel.hasFlag(ChannelConstant.Flags.PUBLIC)) gatewayService.markChannelLazy(channel.getId());
+		gatewayService.addChannelMember(channel.getId(), user.getId());
+
+		MemberDTO memberDTO = new MemberDTO(member, true);
+		gatewayService.sendMessageToChannelSubscribers(List.of(channel.getId()), GatewayConstant.Opcode.DISPATCH.ordinal(), memberDTO, GatewayConstant.Event.MEMBER_ADD.getValue());
+		// The new member has not subscribed yet, lazy channels tell them directly
+		if (channel.hasFlag(ChannelConstant.Flags.PUBLIC))
+			gatewayService.sendMessageToSpecificSessions(List.of(user.getId()), GatewayConstant.Opcode.DISPATCH.ordinal(), memberDTO, GatewayConstant.Event.MEMBER_ADD.getValue());
 		log.debug("Member ({}) joined channel ({}) successfully", member.getUser().getUsername(), channel.getName());
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), new MemberDTO(member, true), GatewayConstant.Event.MEMBER_ADD.getValue());
-		return memberService.add(member);
+		return member;
 	}
 
 	@Override
@@ -139,18 +148,11 @@ public class ChannelServiceImpl implements su.foxochat.service.ChannelService {
 		Member member = memberService.getByChannelIdAndUserId(channel.getId(), user.getId()).orElseThrow(MemberInChannelNotFoundException::new);
 
 		memberService.delete(member);
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), new MemberDTO(member, true), GatewayConstant.Event.MEMBER_REMOVE.getValue());
-		log.debug("Member ({}) left channel ({}) successfully", member.getUser().getUsername(), channel.getName());
-	}
-
-	private List<Long> getRecipients(Channel channel) {
-		Optional<Channel> optChannel = channelRepository.findById(channel.getId());
+		gatewayService.removeChannelMember(channel.getId(), user.getId());
 
-		if (optChannel.isPresent()) channel = optChannel.get();
-
-		return channel.getMembers().stream()
-				.map(Member::getUser)
-				.map(User::getId)
-				.collect(Collectors.toList());
+		MemberDTO memberDTO = new MemberDTO(member, true);
+		gatewayService.sendMessageToChannelSubscribers(List.of(channel.getId()), GatewayConstant.Opcode.DISPATCH.ordinal(), memberDTO, GatewayConstant.Event.MEMBER_REMOVE.getValue());
+		gatewayService.sendMessageToSpecificSessions(List.of(user.getId()), GatewayConstant.Opcode.DISPATCH.ordinal(), memberDTO, GatewayConstant.Event.MEMBER_REMOVE.getValue());
+		log.debug("Member ({}) left channel ({}) successfully", member.getUser().getUsername(), channel.getName());
 	}
 }
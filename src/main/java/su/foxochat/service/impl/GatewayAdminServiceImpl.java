@@ -0,0 +1,92 @@
+package su.foxochat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.api.response.GatewaySessionDTO;
+import su.foxochat.dto.api.response.GatewaySessionsDTO;
+import su.foxochat.exception.gateway.SessionNotFoundException;
+import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.SessionStore;
+import su.foxochat.model.Session;
+import su.foxochat.service.GatewayAdminService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class GatewayAdminServiceImpl implements GatewayAdminService {
+
+	private static final int TOP_USERS = 20;
+
+	private final EventHandler eventHandler;
+
+	private final SessionStore sessionStore;
+
+	public GatewayAdminServiceImpl(EventHandler eventHandler) {
+		this.eventHandler = eventHandler;
+		this.sessionStore = eventHandler.getSessionStore();
+	}
+
+	// Walks the shard maps directly, a snapshot that may be slightly stale but never waits behind dispatch
+	@Override
+	public GatewaySessionsDTO getSessions(Long userId, GatewayConstant.SessionState state, int limit) {
+		Map<GatewayConstant.SessionState, Long> byState = new EnumMap<>(GatewayConstant.SessionState.class);
+		Map<Long, Long> byUser = new HashMap<>();
+		List<GatewaySessionDTO> sessions = new ArrayList<>();
+
+		streamAll().forEach(session -> {
+			GatewayConstant.SessionState sessionState = session.getState();
+			long sessionUserId = session.getUserId();
+
+			byState.merge(sessionState, 1L, Long::sum);
+			if (sessionUserId != 0) byUser.merge(sessionUserId, 1L, Long::sum);
+
+			if (sessions.size() >= limit) return;
+			if (userId != null && sessionUserId != userId) return;
+			if (state != null && sessionState != state) return;
+
+			sessions.add(new GatewaySessionDTO(session));
+		});
+
+		Map<Long, Long> topUsers = new LinkedHashMap<>();
+		byUser.entrySet().stream()
+				.sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+				.limit(TOP_USERS)
+				.forEach(entry -> topUsers.put(entry.getKey(), entry.getValue()));
+
+		return new GatewaySessionsDTO(byState.values().stream().mapToLong(Long::longValue).sum(), byState, topUsers, sessions);
+	}
+
+	@Override
+	public void terminateSession(String sessionId) throws Exception {
+		Session session = sessionStore.find(sessionId);
+
+		if (session == null) throw new SessionNotFoundException();
+
+		eventHandler.terminate(session);
+		log.info("Terminated session ({}) of user id {}", sessionId, session.getUserId());
+	}
+
+	@Override
+	public void terminateUserSessions(long userId) throws Exception {
+		List<Session> sessions = streamAll()
+				.filter(session -> session.getUserId() == userId)
+				.toList();
+
+		for (Session session : sessions) eventHandler.terminate(session);
+
+		log.info("Terminated {} session(s) of user id {}", sessions.size(), userId);
+	}
+
+	private Stream<Session> streamAll() {
+		return Stream.concat(sessionStore.stream(), sessionStore.streamDetached());
+	}
+}
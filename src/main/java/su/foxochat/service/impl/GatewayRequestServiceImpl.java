@@ -0,0 +1,112 @@
+package su.foxochat.service.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.api.request.MessageCreateDTO;
+import su.foxochat.dto.api.response.MessageDTO;
+import su.foxochat.dto.gateway.request.RequestDTO;
+import su.foxochat.exception.channel.ChannelNotFoundException;
+import su.foxochat.exception.gateway.UnknownMethodException;
+import su.foxochat.exception.message.MessageCannotBeEmpty;
+import su.foxochat.model.Channel;
+import su.foxochat.model.Member;
+import su.foxochat.model.Session;
+import su.foxochat.model.User;
+import su.foxochat.service.ChannelService;
+import su.foxochat.service.GatewayRequestService;
+import su.foxochat.service.MemberService;
+import su.foxochat.service.MessageService;
+
+import java.util.Map;
+
+@Slf4j
+@Service
+public class GatewayRequestServiceImpl implements GatewayRequestService {
+
+	private static final int DEFAULT_MESSAGES_LIMIT = 25;
+
+	private final ChannelService channelService;
+
+	private final MemberService memberService;
+
+	private final MessageService messageService;
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	public GatewayRequestServiceImpl(ChannelService channelService, MemberService memberService, MessageService messageService, EntityManagerFactory entityManagerFactory) {
+		this.channelService = channelService;
+		this.memberService = memberService;
+		this.messageService = messageService;
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	@Override
+	public Object handle(Session session, RequestDTO request) throws Exception {
+		GatewayConstant.Method method = GatewayConstant.Method.of(request.getMethod());
+
+		if (method == null) throw new UnknownMethodException();
+
+		if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+			return handle(session, EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory), method, request);
+		}
+
+		// Same entity manager scope an HTTP request gets from open-in-view, so lazy associations resolve while building DTOs
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+
+		try {
+			return handle(session, entityManager, method, request);
+		} finally {
+			TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+			EntityManagerFactoryUtils.closeEntityManager(entityManager);
+		}
+	}
+
+	private Object handle(Session session, EntityManager entityManager, GatewayConstant.Method method, RequestDTO request) throws Exception {
+		Channel channel = channelService.getById(request.getChannelId());
+		// Every method needs a member, like MemberInterceptor on the REST message routes, public channels included
+		Member member = memberService.getByChannelIdAndUserId(channel.getId(), session.getUserId()).orElseThrow(ChannelNotFoundException::new);
+
+		log.debug("Handling {} request from session ({}) in channel ({})", method, session.getId(), channel.getId());
+
+		return switch (method) {
+			case MESSAGES_GET -> {
+				long before = request.getBefore() > 0 ? request.getBefore() : System.currentTimeMillis();
+				int limit = request.getLimit() > 0 ? request.getLimit() : DEFAULT_MESSAGES_LIMIT;
+
+				yield messageService.getAllByChannel(before, limit, channel).stream()
+						.map(message -> new MessageDTO(message, false))
+						.toList();
+			}
+			case MESSAGE_GET -> new MessageDTO(messageService.getByIdAndChannel(request.getMessageId(), channel), true);
+			case MESSAGE_CREATE -> {
+				if (request.getContent() == null && request.getAttachments() == null) throw new MessageCannotBeEmpty();
+
+				// The session is already authenticated, a reference is enough for the id checks done while creating
+				User user = entityManager.getReference(User.class, session.getUserId());
+
+				yield new MessageDTO(messageService.add(channel, user, toMessageCreate(request)), true);
+			}
+			case MESSAGE_UPDATE -> new MessageDTO(messageService.update(request.getMessageId(), channel, member, toMessageCreate(request)), true);
+			case MESSAGE_DELETE -> {
+				messageService.delete(request.getMessageId(), member, channel);
+
+				yield Map.of("id", request.getMessageId());
+			}
+		};
+	}
+
+	private static MessageCreateDTO toMessageCreate(RequestDTO request) {
+		MessageCreateDTO body = new MessageCreateDTO();
+		body.setContent(request.getContent());
+		body.setAttachments(request.getAttachments());
+
+		return body;
+	}
+}
@@ -1,17 +1,27 @@
 package su.foxochat.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-import su.foxochat.dto.gateway.EventDTO;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.internal.DispatchEnvelopeDTO;
+import su.foxochat.dto.internal.SerializedEventDTO;
 import su.foxochat.handler.structure.EventHandler;
+import su.foxochat.handler.structure.GatewayCodec;
 import su.foxochat.model.Session;
+import su.foxochat.service.GatewayBusService;
 import su.foxochat.service.GatewayService;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -19,29 +29,185 @@ public class GatewayServiceImpl implements GatewayService {
 
 	private final EventHandler webSocketHandler;
 
-	private final ObjectMapper objectMapper;
+	private final GatewayCodec gatewayCodec;
 
-	public GatewayServiceImpl(EventHandler webSocketHandler, ObjectMapper objectMapper) {
+	private final GatewayBusService gatewayBusService;
+
+	private final MeterRegistry meterRegistry;
+
+	private final ConcurrentHashMap<String, EventMeters> eventMeters = new ConcurrentHashMap<>();
+
+	public GatewayServiceImpl(EventHandler webSocketHandler, GatewayCodec gatewayCodec, GatewayBusService gatewayBusService, MeterRegistry meterRegistry) {
 		this.webSocketHandler = webSocketHandler;
-		this.objectMapper = objectMapper;
+		this.gatewayCodec = gatewayCodec;
+		this.gatewayBusService = gatewayBusService;
+		this.meterRegistry = meterRegistry;
 	}
 
 	@Override
 	public void sendMessageToSpecificSessions(List<Long> userIds, int opcode, Object data, String type) throws Exception {
-		ConcurrentHashMap<String, Session> sessions = webSocketHandler.getSessions();
-		for (Session session : sessions.values()) {
-			if (session != null) {
-				if (!userIds.contains(session.getUserId())) return;
+		send(getUserSessions(userIds), GatewayConstant.BusAction.DISPATCH, null, userIds, opcode, data, type);
+
+		log.debug("Sent message to userIds ({}) with (opcode: {}, type: {})", userIds, opcode, type);
+	}
+
+	@Override
+	public void sendMessageToChannel(long channelId, int opcode, Object data, String type) throws Exception {
+		sendMessageToChannels(List.of(channelId), opcode, data, type);
+	}
+
+	@Override
+	public void sendMessageToChannels(Collection<Long> channelIds, int opcode, Object data, String type) throws Exception {
+		if (channelIds.isEmpty()) return;
+
+		List<Long> channels = List.copyOf(channelIds);
 
-				int seqNumber = session.getSequence();
-				session.increaseSequence();
-				WebSocketSession wsSession = session.getWebSocketSession();
+		send(getChannelSessions(channels, false), GatewayConstant.BusAction.DISPATCH, channels, null, opcode, data, type);
 
-				if (!wsSession.isOpen()) return;
+		log.debug("Sent message to channels ({}) with (opcode: {}, type: {})", channels, opcode, type);
+	}
+
+	@Override
+	public void sendMessageToChannelSubscribers(Collection<Long> channelIds, int opcode, Object data, String type) throws Exception {
+		if (channelIds.isEmpty()) return;
+
+		List<Long> channels = List.copyOf(channelIds);
+
+		send(getChannelSessions(channels, true), GatewayConstant.BusAction.DISPATCH_SUBSCRIBERS, channels, null, opcode, data, type);
+
+		log.debug("Sent message to channel subscribers ({}) with (opcode: {}, type: {})", channels, opcode, type);
+	}
 
-				wsSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(new EventDTO(opcode, data, seqNumber, type))));
-				log.debug("Sent message to userIds ({}) with (opcode: {}, type: {})", userIds, opcode, type);
-			}
+	@Override
+	public void markChannelLazy(long channelId) {
+		webSocketHandler.markChannelLazy(channelId);
+		publish(GatewayConstant.BusAction.CHANNEL_LAZY, channelId, null, null, 0, null, null);
+	}
+
+	@Override
+	public void addChannelMember(long channelId, long userId) {
+		webSocketHandler.addChannelMember(channelId, userId);
+		publish(GatewayConstant.BusAction.CHANNEL_MEMBER_ADD, channelId, null, List.of(userId), 0, null, null);
+	}
+
+	@Override
+	public void removeChannelMember(long channelId, long userId) {
+		webSocketHandler.removeChannelMember(channelId, userId);
+		publish(GatewayConstant.BusAction.CHANNEL_MEMBER_REMOVE, channelId, null, List.of(userId), 0, null, null);
+	}
+
+	@Override
+	public void removeChannel(long channelId) {
+		webSocketHandler.removeChannel(channelId);
+		publish(GatewayConstant.BusAction.CHANNEL_REMOVE, channelId, null, null, 0, null, null);
+	}
+
+	@Override
+	public void deliver(DispatchEnvelopeDTO envelope) throws Exception {
+		long channelId = envelope.getChannelId();
+
+		switch (envelope.getAction()) {
+			case DISPATCH -> deliver(envelope.getChannelIds() != null ? getChannelSessions(envelope.getChannelIds(), false) : getUserSessions(envelope.getUserIds()), envelope);
+			case DISPATCH_SUBSCRIBERS -> deliver(getChannelSessions(envelope.getChannelIds(), true), envelope);
+			case CHANNEL_LAZY -> webSocketHandler.markChannelLazy(channelId);
+			case CHANNEL_MEMBER_ADD -> envelope.getUserIds().forEach(userId -> webSocketHandler.addChannelMember(channelId, userId));
+			case CHANNEL_MEMBER_REMOVE -> envelope.getUserIds().forEach(userId -> webSocketHandler.removeChannelMember(channelId, userId));
+			case CHANNEL_REMOVE -> webSocketHandler.removeChannel(channelId);
 		}
+
+		log.debug("Delivered {} from node ({}) with (opcode: {}, type: {})", envelope.getAction(), envelope.getNode(), envelope.getOp(), envelope.getT());
+	}
+
+	// Nothing is serialized for an event no local session opted into, unless other nodes still need it
+	private void send(Set<Session> sessions, GatewayConstant.BusAction action, List<Long> channelIds, List<Long> userIds, int opcode, Object data, String type) throws IOException {
+		boolean local = isWanted(sessions, type);
+
+		if (!local && !gatewayBusService.isClustered()) return;
+
+		SerializedEventDTO event = serialize(opcode, data, type);
+
+		if (local) dispatchLocal(sessions, event);
+		publish(action, 0, channelIds, userIds, opcode, event.getDataJson(), type);
+	}
+
+	private void deliver(Set<Session> sessions, DispatchEnvelopeDTO envelope) throws IOException {
+		if (isWanted(sessions, envelope.getT())) dispatchLocal(sessions, gatewayCodec.serializeRaw(envelope.getOp(), envelope.getD(), envelope.getT()));
+	}
+
+	private static boolean isWanted(Set<Session> sessions, String type) {
+		long intent = GatewayConstant.Event.getIntentBit(type);
+
+		for (Session session : sessions) {
+			if (session.hasIntent(intent)) return true;
+		}
+
+		return false;
+	}
+
+	private void publish(GatewayConstant.BusAction action, long channelId, List<Long> channelIds, List<Long> userIds, int opcode, String data, String type) {
+		gatewayBusService.publish(new DispatchEnvelopeDTO(gatewayBusService.getNodeId(), action, channelId, channelIds, userIds, opcode, data, type));
+	}
+
+	private Set<Session> getChannelSessions(List<Long> channelIds, boolean subscribersOnly) {
+		if (channelIds.size() == 1) return getChannelSessions(channelIds.getFirst(), subscribersOnly);
+
+		// A session in several of the channels still gets the event once
+		Set<Session> sessions = new HashSet<>();
+		for (long channelId : channelIds) {
+			sessions.addAll(getChannelSessions(channelId, subscribersOnly));
+		}
+		return sessions;
+	}
+
+	private Set<Session> getChannelSessions(long channelId, boolean subscribersOnly) {
+		// Lazy channels only fan presence and member-list deltas out to sessions viewing them
+		if (subscribersOnly && webSocketHandler.isChannelLazy(channelId)) return webSocketHandler.getChannelSubscribers(channelId);
+
+		return webSocketHandler.getChannelSessions(channelId);
+	}
+
+	private SerializedEventDTO serialize(int opcode, Object data, String type) throws IOException {
+		long start = System.nanoTime();
+		SerializedEventDTO event = gatewayCodec.serialize(opcode, data, type);
+
+		getEventMeters(type).serialization().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return event;
+	}
+
+	private Set<Session> getUserSessions(List<Long> userIds) {
+		Set<Session> sessions = new HashSet<>();
+
+		for (long userId : userIds) {
+			sessions.addAll(webSocketHandler.getUserSessions(userId));
+		}
+
+		return sessions;
+	}
+
+	private void dispatchLocal(Set<Session> sessions, SerializedEventDTO event) throws IOException {
+		webSocketHandler.dispatch(sessions, event);
+
+		EventMeters meters = getEventMeters(event.getType());
+		meters.dispatched().increment();
+		meters.fanout().record(sessions.size());
+	}
+
+	private EventMeters getEventMeters(String type) {
+		return eventMeters.computeIfAbsent(type != null ? type : "NONE", event -> new EventMeters(
+				Counter.builder("gateway.dispatch")
+						.tag("event", event)
+						.register(meterRegistry),
+				DistributionSummary.builder("gateway.dispatch.fanout")
+						.tag("event", event)
+						.baseUnit("sessions")
+						.publishPercentileHistogram()
+						.register(meterRegistry),
+				Timer.builder("gateway.dispatch.serialization")
+						.tag("event", event)
+						.publishPercentileHistogram()
+						.register(meterRegistry)));
+	}
+
+	private record EventMeters(Counter dispatched, DistributionSummary fanout, Timer serialization) {
 	}
 }
@@ -0,0 +1,50 @@
+package su.foxochat.service.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import su.foxochat.dto.internal.DispatchEnvelopeDTO;
+import su.foxochat.service.GatewayBusService;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Service
+@ConditionalOnProperty(name = "gateway.cluster-bus", havingValue = "none", matchIfMissing = true)
+public class LocalGatewayBusServiceImpl implements GatewayBusService {
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public boolean isClustered() {
+		return false;
+	}
+
+	@Override
+	public void publish(DispatchEnvelopeDTO envelope) {
+	}
+
+	// A single node counts all of a user's sessions itself
+	@Override
+	public void claimPresence(long userId) {
+	}
+
+	@Override
+	public boolean releasePresence(long userId) {
+		return true;
+	}
+
+	@Override
+	public Collection<Long> releasePresences(Collection<Long> userIds) {
+		return userIds;
+	}
+
+	@Override
+	public Collection<Long> findUnclaimedPresences(Collection<Long> userIds) {
+		return userIds;
+	}
+}
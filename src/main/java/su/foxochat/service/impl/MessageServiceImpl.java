@@ -8,7 +8,6 @@ import su.foxochat.dto.api.request.AttachmentAddDTO;
 import su.foxochat.dto.api.request.MessageCreateDTO;
 import su.foxochat.dto.api.response.MessageDTO;
 import su.foxochat.dto.api.response.UploadAttachmentDTO;
-import su.foxochat.exception.channel.ChannelNotFoundException;
 import su.foxochat.exception.member.MemberInChannelNotFoundException;
 import su.foxochat.exception.member.MissingPermissionsException;
 import su.foxochat.exception.message.AttachmentsCannotBeEmpty;
@@ -16,14 +15,13 @@ import su.foxochat.exception.message.MessageNotFoundException;
 import su.foxochat.model.*;
 import su.foxochat.repository.MessageRepository;
 import su.foxochat.service.AttachmentService;
-import su.foxochat.service.ChannelService;
 import su.foxochat.service.GatewayService;
 import su.foxochat.service.MemberService;
+import su.foxochat.service.TypingService;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -37,14 +35,14 @@ public class MessageServiceImpl implements su.foxochat.service.MessageService {
 
 	private final AttachmentService attachmentService;
 
-	private final ChannelService channelService;
+	private final TypingService typingService;
 
-	public MessageServiceImpl(MessageRepository messageRepository, GatewayService gatewayService, MemberService memberService, AttachmentService attachmentService, ChannelService channelService) {
+	public MessageServiceImpl(MessageRepository messageRepository, GatewayService gatewayService, MemberService memberService, AttachmentService attachmentService, TypingService typingService) {
 		this.messageRepository = messageRepository;
 		this.gatewayService = gatewayService;
 		this.memberService = memberService;
 		this.attachmentService = attachmentService;
-		this.channelService = channelService;
+		this.typingService = typingService;
 	}
 
 	@Override
@@ -78,7 +76,8 @@ public class MessageServiceImpl implements su.foxochat.service.MessageService {
 		Message message = new Message(channel, body.getContent(), member, attachments);
 		messageRepository.save(message);
 
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), new MessageDTO(message, true), GatewayConstant.Event.MESSAGE_CREATE.getValue());
+		typingService.stop(user.getId(), channel.getId());
+		gatewayService.sendMessageToChannel(channel.getId(), GatewayConstant.Opcode.DISPATCH.ordinal(), new MessageDTO(message, true), GatewayConstant.Event.MESSAGE_CREATE.getValue());
 		log.debug("Message {} to channel {} created successfully", message.getId(), channel.getId());
 
 		return message;
@@ -105,7 +104,7 @@ public class MessageServiceImpl implements su.foxochat.service.MessageService {
 			throw new MissingPermissionsException();
 
 		messageRepository.delete(message);
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), Map.of("id", id), GatewayConstant.Event.MESSAGE_DELETE.getValue());
+		gatewayService.sendMessageToChannel(channel.getId(), GatewayConstant.Opcode.DISPATCH.ordinal(), Map.of("id", id), GatewayConstant.Event.MESSAGE_DELETE.getValue());
 		log.debug("Message {} in channel {} deleted successfully", id, channel.getId());
 	}
 
@@ -119,7 +118,7 @@ public class MessageServiceImpl implements su.foxochat.service.MessageService {
 		message.setContent(content);
 		messageRepository.save(message);
 
-		gatewayService.sendMessageToSpecificSessions(getRecipients(channel), GatewayConstant.Opcode.DISPATCH.ordinal(), new MessageDTO(message, true), GatewayConstant.Event.MESSAGE_UPDATE.getValue());
+		gatewayService.sendMessageToChannel(channel.getId(), GatewayConstant.Opcode.DISPATCH.ordinal(), new MessageDTO(message, true), GatewayConstant.Event.MESSAGE_UPDATE.getValue());
 		log.debug("Message {} in channel {} edited successfully", id, channel.getId());
 
 		return message;
@@ -129,12 +128,4 @@ public class MessageServiceImpl implements su.foxochat.service.MessageService {
 	public Message getLastByChannel(Channel channel) {
 		return messageRepository.getLastMessageByChannel(channel).orElse(null);
 	}
-
-	private List<Long> getRecipients(Channel channel) throws ChannelNotFoundException {
-		return channelService.getById(channel.getId())
-				.getMembers().stream()
-				.map(Member::getUser)
-				.map(User::getId)
-				.collect(Collectors.toList());
-	}
 }
@@ -0,0 +1,258 @@
+package su.foxochat.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import su.foxochat.constant.UserConstant;
+import su.foxochat.dto.internal.DispatchEnvelopeDTO;
+import su.foxochat.service.GatewayBusService;
+import su.foxochat.service.GatewayService;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "gateway.cluster-bus", havingValue = "postgres")
+public class PostgresGatewayBusServiceImpl implements GatewayBusService {
+
+	private static final String CHANNEL = "gateway_dispatch";
+
+	// Postgres rejects NOTIFY payloads of 8000 bytes or more, larger dispatches go through the table
+	private static final int NOTIFY_PAYLOAD_LIMIT = 7900;
+
+	private static final String SPILL_PREFIX = "#";
+
+	private static final long SPILL_RETENTION = 5 * 60 * 1000;
+
+	private static final long NODE_HEARTBEAT_INTERVAL = 10 * 1000;
+
+	// Presences held by a node not seen for this long are ignored and released by the nodes still running
+	private static final long NODE_TIMEOUT = 3 * NODE_HEARTBEAT_INTERVAL;
+
+	// Takes the user id expression and the live since bound
+	private static final String HELD = "SELECT 1 FROM gateway_presences p JOIN gateway_nodes n ON n.node_id = p.node_id WHERE p.user_id = %s AND n.seen_at >= ?";
+
+	// A DELETE in a WITH is not visible to the rest of the statement, so the node's own rows are excluded by id
+	private static final String HELD_ELSEWHERE = HELD + " AND p.node_id <> ?";
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final DataSourceProperties dataSourceProperties;
+
+	private final ObjectMapper objectMapper;
+
+	private final GatewayService gatewayService;
+
+	private final ExecutorService publisher = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("gateway-bus-publisher").factory());
+
+	private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-bus-cleaner").factory());
+
+	private volatile boolean running = true;
+
+	public PostgresGatewayBusServiceImpl(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties, ObjectMapper objectMapper, @Lazy GatewayService gatewayService) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dataSourceProperties = dataSourceProperties;
+		this.objectMapper = objectMapper;
+		this.gatewayService = gatewayService;
+
+		heartbeat();
+		Thread.ofPlatform().name("gateway-bus-listener").daemon().start(this::listen);
+		cleaner.scheduleAtFixedRate(this::heartbeat, NODE_HEARTBEAT_INTERVAL, NODE_HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+		cleaner.scheduleAtFixedRate(this::cleanup, 1, 1, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public boolean isClustered() {
+		return true;
+	}
+
+	@Override
+	public void publish(DispatchEnvelopeDTO envelope) {
+		// One publisher thread keeps dispatches in order across nodes
+		publisher.execute(() -> {
+			try {
+				String payload = objectMapper.writeValueAsString(envelope);
+
+				if (payload.getBytes(StandardCharsets.UTF_8).length < NOTIFY_PAYLOAD_LIMIT) {
+					jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> {}, CHANNEL, payload);
+				} else {
+					jdbcTemplate.query("WITH dispatch AS (INSERT INTO gateway_dispatches (payload, created_at) VALUES (?, ?) RETURNING id) SELECT pg_notify(?, ? || id) FROM dispatch", resultSet -> {},
+							payload, System.currentTimeMillis(), CHANNEL, SPILL_PREFIX);
+				}
+			} catch (Exception e) {
+				log.error("Error publishing gateway dispatch ({})", envelope.getT(), e);
+			}
+		});
+	}
+
+	@Override
+	public void claimPresence(long userId) {
+		jdbcTemplate.update("INSERT INTO gateway_presences (user_id, node_id) VALUES (?, ?) ON CONFLICT DO NOTHING", userId, nodeId);
+	}
+
+	@Override
+	public boolean releasePresence(long userId) {
+		Boolean released = jdbcTemplate.queryForObject("WITH released AS (DELETE FROM gateway_presences WHERE user_id = ? AND node_id = ?) SELECT NOT EXISTS (" + HELD_ELSEWHERE.formatted("?") + ")",
+				Boolean.class, userId, nodeId, userId, liveSince(), nodeId);
+
+		return Boolean.TRUE.equals(released);
+	}
+
+	@Override
+	public Collection<Long> releasePresences(Collection<Long> userIds) {
+		if (userIds.isEmpty()) return List.of();
+
+		Long[] ids = userIds.toArray(Long[]::new);
+
+		return jdbcTemplate.queryForList("WITH released AS (DELETE FROM gateway_presences WHERE node_id = ? AND user_id = ANY (?) RETURNING user_id) SELECT r.user_id FROM released r WHERE NOT EXISTS (" + HELD_ELSEWHERE.formatted("r.user_id") + ")",
+				Long.class, nodeId, ids, liveSince(), nodeId);
+	}
+
+	@Override
+	public Collection<Long> findUnclaimedPresences(Collection<Long> userIds) {
+		if (userIds.isEmpty()) return List.of();
+
+		Set<Long> claimed = new HashSet<>(jdbcTemplate.queryForList("SELECT DISTINCT p.user_id FROM gateway_presences p JOIN gateway_nodes n ON n.node_id = p.node_id WHERE p.user_id = ANY (?) AND n.seen_at >= ?",
+				Long.class, userIds.toArray(Long[]::new), liveSince()));
+
+		return userIds.stream().filter(userId -> !claimed.contains(userId)).toList();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		publisher.shutdown();
+		cleaner.shutdownNow();
+
+		try {
+			jdbcTemplate.update("DELETE FROM gateway_presences WHERE node_id = ?", nodeId);
+			jdbcTemplate.update("DELETE FROM gateway_nodes WHERE node_id = ?", nodeId);
+		} catch (Exception e) {
+			log.error("Error removing gateway node {}", nodeId, e);
+		}
+	}
+
+	private void listen() {
+		while (running) {
+			try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(), dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + CHANNEL);
+				}
+
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				log.debug("Listening for gateway dispatches as node {}", nodeId);
+
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(1000);
+
+					if (notifications == null) continue;
+
+					for (PGNotification notification : notifications) {
+						receive(connection, notification.getParameter());
+					}
+				}
+			} catch (SQLException e) {
+				if (!running) return;
+
+				log.error("Gateway bus connection lost, reconnecting", e);
+
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException ignored) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void receive(Connection connection, String payload) throws SQLException {
+		try {
+			if (payload.startsWith(SPILL_PREFIX)) payload = loadSpilled(connection, Long.parseLong(payload.substring(SPILL_PREFIX.length())));
+
+			if (payload == null) return;
+
+			DispatchEnvelopeDTO envelope = objectMapper.readValue(payload, DispatchEnvelopeDTO.class);
+
+			if (nodeId.equals(envelope.getNode())) return;
+
+			gatewayService.deliver(envelope);
+		} catch (SQLException e) {
+			throw e;
+		} catch (Exception e) {
+			log.error("Error delivering gateway dispatch", e);
+		}
+	}
+
+	private String loadSpilled(Connection connection, long id) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT payload FROM gateway_dispatches WHERE id = ?")) {
+			statement.setLong(1, id);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? resultSet.getString(1) : null;
+			}
+		}
+	}
+
+	private void heartbeat() {
+		try {
+			jdbcTemplate.update("INSERT INTO gateway_nodes (node_id, seen_at) VALUES (?, ?) ON CONFLICT (node_id) DO UPDATE SET seen_at = excluded.seen_at", nodeId, System.currentTimeMillis());
+		} catch (Exception e) {
+			log.error("Error updating gateway node {}", nodeId, e);
+		}
+	}
+
+	private void cleanup() {
+		try {
+			jdbcTemplate.update("DELETE FROM gateway_dispatches WHERE created_at < ?", System.currentTimeMillis() - SPILL_RETENTION);
+		} catch (Exception e) {
+			log.error("Error cleaning up spilled gateway dispatches", e);
+		}
+
+		// A node that died without shutting down never wrote OFFLINE for its users, the surviving nodes do it for the ones nobody else holds
+		try {
+			long liveSince = liveSince();
+			int released = jdbcTemplate.update("WITH released AS (DELETE FROM gateway_presences p WHERE NOT EXISTS (SELECT 1 FROM gateway_nodes n WHERE n.node_id = p.node_id AND n.seen_at >= ?) RETURNING p.user_id) "
+							+ "UPDATE users u SET status = ?, status_updated_at = ? WHERE u.id IN (SELECT user_id FROM released) AND NOT EXISTS (" + HELD.formatted("u.id") + ")",
+					liveSince, UserConstant.Status.OFFLINE.getStatus(), System.currentTimeMillis(), liveSince);
+
+			jdbcTemplate.update("DELETE FROM gateway_nodes WHERE seen_at < ?", liveSince);
+
+			if (released > 0) log.debug("Set {} users held by stopped gateway nodes offline", released);
+		} catch (Exception e) {
+			log.error("Error releasing presences of stopped gateway nodes", e);
+		}
+	}
+
+	private static long liveSince() {
+		return System.currentTimeMillis() - NODE_TIMEOUT;
+	}
+}
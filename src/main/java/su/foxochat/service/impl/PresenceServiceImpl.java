@@ -0,0 +1,204 @@
+package su.foxochat.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import su.foxochat.config.GatewayConfig;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.constant.UserConstant;
+import su.foxochat.dto.gateway.StatusDTO;
+import su.foxochat.repository.UserRepository;
+import su.foxochat.service.GatewayBusService;
+import su.foxochat.service.GatewayService;
+import su.foxochat.service.PresenceService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class PresenceServiceImpl implements PresenceService {
+
+	private static final long RELEASE_TIMEOUT = 5000;
+
+	private final UserRepository userRepository;
+
+	private final GatewayService gatewayService;
+
+	private final GatewayBusService gatewayBusService;
+
+	// Counts sessions on this node, across nodes each one holding a user claims it through the cluster bus and the last to release it sets OFFLINE
+	private final ConcurrentHashMap<Long, Presence> presences = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Long, Integer> pendingStatuses = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-presence").factory());
+
+	private final ExecutorService releaser = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("gateway-presence-release").factory());
+
+	public PresenceServiceImpl(UserRepository userRepository, @Lazy GatewayService gatewayService, GatewayBusService gatewayBusService, GatewayConfig gatewayConfig) {
+		this.userRepository = userRepository;
+		this.gatewayService = gatewayService;
+		this.gatewayBusService = gatewayBusService;
+
+		long interval = gatewayConfig.getPresenceFlushInterval();
+		executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void connect(long userId, Collection<Long> channelIds) {
+		while (true) {
+			Presence presence = presences.computeIfAbsent(userId, id -> new Presence());
+
+			presence.lock.lock();
+			try {
+				// Lost to the last disconnect removing it, the next one in the map is current
+				if (presence.removed) continue;
+
+				if (presence.sessions++ == 0) {
+					claim(userId);
+					transition(userId, UserConstant.Status.ONLINE, channelIds);
+				}
+				return;
+			} finally {
+				presence.lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void disconnect(long userId, Collection<Long> channelIds) {
+		// Clustered, the last disconnect asks the database whether another node holds the user, which the session shard calling this should not wait on
+		if (gatewayBusService.isClustered()) releaser.execute(() -> leave(userId, channelIds));
+		else leave(userId, channelIds);
+	}
+
+	@Override
+	public boolean isOnline(long userId) {
+		return presences.containsKey(userId);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+		releaser.shutdown();
+
+		try {
+			if (!releaser.awaitTermination(RELEASE_TIMEOUT, TimeUnit.MILLISECONDS)) log.warn("Presence releases still running at shutdown");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Users connected to this node go offline with it, unless they are also connected to, or already moved to, another node
+		Collection<Long> released;
+		try {
+			released = gatewayBusService.releasePresences(List.copyOf(presences.keySet()));
+		} catch (Exception e) {
+			log.error("Error releasing presences of {} users, leaving their statuses to the other nodes", presences.size(), e);
+			released = List.of();
+		}
+
+		for (long userId : released) {
+			pendingStatuses.put(userId, UserConstant.Status.OFFLINE.getStatus());
+		}
+		flush();
+	}
+
+	private void leave(long userId, Collection<Long> channelIds) {
+		Presence presence = presences.get(userId);
+
+		if (presence == null) return;
+
+		// Transitions run under the user's lock, so a quick reconnect cannot overtake the OFFLINE before it and end up stored or sent last
+		presence.lock.lock();
+		try {
+			if (presence.removed || --presence.sessions > 0) return;
+
+			presence.removed = true;
+			presences.remove(userId, presence);
+
+			if (release(userId)) transition(userId, UserConstant.Status.OFFLINE, channelIds);
+			else log.debug("User {} left this node but is still connected to another", userId);
+		} finally {
+			presence.lock.unlock();
+		}
+	}
+
+	private void claim(long userId) {
+		try {
+			gatewayBusService.claimPresence(userId);
+		} catch (Exception e) {
+			log.error("Error claiming presence of user {}", userId, e);
+		}
+	}
+
+	// On failure the user is treated as released, as if this were the only node
+	private boolean release(long userId) {
+		try {
+			return gatewayBusService.releasePresence(userId);
+		} catch (Exception e) {
+			log.error("Error releasing presence of user {}", userId, e);
+			return true;
+		}
+	}
+
+	private void transition(long userId, UserConstant.Status status, Collection<Long> channelIds) {
+		pendingStatuses.put(userId, status.getStatus());
+
+		try {
+			gatewayService.sendMessageToChannelSubscribers(channelIds, GatewayConstant.Opcode.DISPATCH.ordinal(), new StatusDTO(userId, status.getStatus()), GatewayConstant.Event.USER_STATUS_UPDATE.getValue());
+		} catch (Exception e) {
+			log.error("Error dispatching status for user {}", userId, e);
+		}
+
+		log.debug("User {} is now {}", userId, status);
+	}
+
+	// Writes go out in one UPDATE per status, so connect storms cost a handful of queries per interval
+	private void flush() {
+		if (pendingStatuses.isEmpty()) return;
+
+		Map<Integer, List<Long>> batches = new HashMap<>();
+
+		for (long userId : pendingStatuses.keySet()) {
+			Integer status = pendingStatuses.remove(userId);
+
+			if (status != null) batches.computeIfAbsent(status, s -> new ArrayList<>()).add(userId);
+		}
+
+		long now = System.currentTimeMillis();
+
+		batches.forEach((status, userIds) -> {
+			try {
+				// A user released here may have been claimed by another node since, that node owns the status then
+				Collection<Long> ids = status == UserConstant.Status.OFFLINE.getStatus() ? gatewayBusService.findUnclaimedPresences(userIds) : userIds;
+
+				if (!ids.isEmpty()) userRepository.updateStatus(ids, status, now);
+			} catch (Exception e) {
+				log.error("Error persisting status {} for {} users", status, userIds.size(), e);
+			}
+		});
+
+		log.debug("Persisted statuses for {} users", batches.values().stream().mapToInt(List::size).sum());
+	}
+
+	// A lock instead of synchronized, dispatching may block on the cluster bus and would pin the carrier thread
+	private static class Presence {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private int sessions;
+
+		private boolean removed;
+	}
+}
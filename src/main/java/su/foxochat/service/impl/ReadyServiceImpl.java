@@ -0,0 +1,102 @@
+package su.foxochat.service.impl;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import su.foxochat.constant.UserConstant;
+import su.foxochat.dto.api.response.AttachmentDTO;
+import su.foxochat.dto.api.response.ChannelDTO;
+import su.foxochat.dto.api.response.MemberDTO;
+import su.foxochat.dto.api.response.MessageDTO;
+import su.foxochat.dto.api.response.UserDTO;
+import su.foxochat.dto.gateway.StatusDTO;
+import su.foxochat.dto.gateway.response.ReadyDTO;
+import su.foxochat.dto.internal.AttachmentSummaryDTO;
+import su.foxochat.dto.internal.ChannelSummaryDTO;
+import su.foxochat.dto.internal.MessageSummaryDTO;
+import su.foxochat.dto.internal.UserSummaryDTO;
+import su.foxochat.model.User;
+import su.foxochat.repository.ChannelRepository;
+import su.foxochat.repository.MessageRepository;
+import su.foxochat.repository.UserRepository;
+import su.foxochat.service.PresenceService;
+import su.foxochat.service.ReadyService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ReadyServiceImpl implements ReadyService {
+
+	private final ChannelRepository channelRepository;
+
+	private final MessageRepository messageRepository;
+
+	private final UserRepository userRepository;
+
+	private final PresenceService presenceService;
+
+	public ReadyServiceImpl(ChannelRepository channelRepository, MessageRepository messageRepository, UserRepository userRepository, PresenceService presenceService) {
+		this.channelRepository = channelRepository;
+		this.messageRepository = messageRepository;
+		this.userRepository = userRepository;
+		this.presenceService = presenceService;
+	}
+
+	// Flat projections only: loading entities here would pull in every eager members, messages and contacts collection
+	@Override
+	@Transactional(readOnly = true)
+	public ReadyDTO build(User user) {
+		List<ChannelSummaryDTO> channels = channelRepository.findSummariesByMemberUserId(user.getId());
+		List<Long> channelIds = channels.stream().map(ChannelSummaryDTO::getId).toList();
+		List<Long> contactIds = userRepository.findContactIdsByUserId(user.getId());
+
+		List<MessageSummaryDTO> lastMessages = channelIds.isEmpty() ? List.of() : messageRepository.findLastSummariesByChannelIds(channelIds);
+		Map<Long, List<AttachmentDTO>> attachments = lastMessages.isEmpty() ? Map.of() : messageRepository.findAttachmentSummariesByMessageIds(lastMessages.stream().map(MessageSummaryDTO::getId).toList())
+				.stream()
+				.collect(Collectors.groupingBy(AttachmentSummaryDTO::getOwnerId, Collectors.mapping(AttachmentDTO::new, Collectors.toList())));
+
+		Set<Long> userIds = new HashSet<>(contactIds);
+		channels.forEach(channel -> userIds.add(channel.getOwnerId()));
+		lastMessages.forEach(message -> userIds.add(message.getAuthorUserId()));
+
+		Map<Long, UserDTO> users = new HashMap<>();
+		if (!userIds.isEmpty()) {
+			for (UserSummaryDTO summary : userRepository.findSummariesByIds(userIds)) {
+				UserDTO userDTO = new UserDTO(summary);
+				// Statuses are persisted in debounced batches, so sessions on this node are fresher than the row
+				if (presenceService.isOnline(summary.getId())) userDTO.setStatus(UserConstant.Status.ONLINE.getStatus());
+				users.put(summary.getId(), userDTO);
+			}
+		}
+
+		Map<Long, MessageDTO> lastMessagesByChannel = new HashMap<>();
+		for (MessageSummaryDTO message : lastMessages) {
+			MemberDTO author = new MemberDTO(message.getAuthorId(), users.get(message.getAuthorUserId()), message.getAuthorPermissions(), message.getAuthorJoinedAt());
+			lastMessagesByChannel.put(message.getChannelId(), new MessageDTO(message, author, attachments.getOrDefault(message.getId(), new ArrayList<>())));
+		}
+
+		List<ChannelDTO> channelDTOs = channels.stream()
+				.map(channel -> new ChannelDTO(channel, users.get(channel.getOwnerId()), lastMessagesByChannel.get(channel.getId())))
+				.toList();
+
+		List<UserDTO> contacts = new ArrayList<>();
+		List<StatusDTO> presences = new ArrayList<>();
+		for (long contactId : contactIds) {
+			UserDTO contact = users.get(contactId);
+			if (contact == null) continue;
+
+			contacts.add(contact);
+			presences.add(new StatusDTO(contact.getId(), contact.getStatus()));
+		}
+
+		UserDTO self = new UserDTO(user, channelIds, contactIds, true, true, true);
+		self.setStatus(UserConstant.Status.ONLINE.getStatus());
+
+		return new ReadyDTO(self, channelDTOs, contacts, presences);
+	}
+}
@@ -0,0 +1,89 @@
+package su.foxochat.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import su.foxochat.constant.GatewayConstant;
+import su.foxochat.dto.gateway.response.TypingDTO;
+import su.foxochat.model.Session;
+import su.foxochat.service.GatewayService;
+import su.foxochat.service.TypingService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class TypingServiceImpl implements TypingService {
+
+	private static final long SWEEP_INTERVAL = 1000;
+
+	private final GatewayService gatewayService;
+
+	private final ConcurrentHashMap<TypingKey, Typing> typings = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("gateway-typing").factory());
+
+	public TypingServiceImpl(@Lazy GatewayService gatewayService) {
+		this.gatewayService = gatewayService;
+
+		executor.scheduleAtFixedRate(this::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void start(Session session, long channelId) throws Exception {
+		// Membership comes from the gateway channel registry, not from the database
+		if (!session.getChannels().contains(channelId)) return;
+
+		long now = System.currentTimeMillis();
+		TypingKey key = new TypingKey(session.getUserId(), channelId);
+
+		// Repeated starts only push the expiry forward, TYPING_START goes out once per burst
+		Typing typing = typings.compute(key, (k, current) -> current == null
+				? new Typing(now, now + GatewayConstant.TYPING_TIMEOUT)
+				: new Typing(current.startedAt(), Math.max(current.expiresAt(), now + GatewayConstant.TYPING_TIMEOUT)));
+
+		if (typing.startedAt() != now) return;
+
+		gatewayService.sendMessageToChannel(channelId, GatewayConstant.Opcode.DISPATCH.ordinal(), new TypingDTO(channelId, key.userId(), now), GatewayConstant.Event.TYPING_START.getValue());
+		log.debug("User ({}) started typing in channel ({})", key.userId(), channelId);
+	}
+
+	@Override
+	public void stop(long userId, long channelId) {
+		// Clients clear the indicator on MESSAGE_CREATE, so no TYPING_STOP is needed here
+		typings.remove(new TypingKey(userId, channelId));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private void sweep() {
+		long now = System.currentTimeMillis();
+
+		for (Map.Entry<TypingKey, Typing> entry : typings.entrySet()) {
+			if (entry.getValue().expiresAt() > now) continue;
+			if (!typings.remove(entry.getKey(), entry.getValue())) continue;
+
+			TypingKey key = entry.getKey();
+
+			try {
+				gatewayService.sendMessageToChannel(key.channelId(), GatewayConstant.Opcode.DISPATCH.ordinal(), new TypingDTO(key.channelId(), key.userId(), now), GatewayConstant.Event.TYPING_STOP.getValue());
+			} catch (Exception e) {
+				log.error("Error sending typing stop for user ({}) in channel ({})", key.userId(), key.channelId(), e);
+			}
+		}
+	}
+
+	private record TypingKey(long userId, long channelId) {
+	}
+
+	private record Typing(long startedAt, long expiresAt) {
+	}
+}
@@ -11,11 +11,9 @@ import su.foxochat.constant.OTPConstant;
 import su.foxochat.constant.UserConstant;
 import su.foxochat.dto.api.request.UserEditDTO;
 import su.foxochat.dto.api.response.UserDTO;
-import su.foxochat.dto.gateway.StatusDTO;
 import su.foxochat.exception.otp.OTPExpiredException;
 import su.foxochat.exception.otp.OTPsInvalidException;
 import su.foxochat.exception.user.*;
-import su.foxochat.model.Member;
 import su.foxochat.model.OTP;
 import su.foxochat.model.User;
 import su.foxochat.model.UserContact;
@@ -25,9 +23,7 @@ import su.foxochat.util.OTPGenerator;
 import su.foxochat.util.PasswordHasher;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -45,16 +41,13 @@ public class UserServiceImpl implements su.foxochat.service.UserService {
 
 	private final GatewayService gatewayService;
 
-	private final MemberService memberService;
-
-	public UserServiceImpl(UserRepository userRepository, EmailService emailService, OTPService otpService, AttachmentService attachmentService, APIConfig apiConfig, @Lazy GatewayService gatewayService, MemberService memberService) {
+	public UserServiceImpl(UserRepository userRepository, EmailService emailService, OTPService otpService, AttachmentService attachmentService, APIConfig apiConfig, @Lazy GatewayService gatewayService) {
 		this.userRepository = userRepository;
 		this.emailService = emailService;
 		this.otpService = otpService;
 		this.attachmentService = attachmentService;
 		this.apiConfig = apiConfig;
 		this.gatewayService = gatewayService;
-		this.memberService = memberService;
 	}
 
 	@Override
@@ -142,24 +135,6 @@ public class UserServiceImpl implements su.foxochat.service.UserService {
 		otpService.delete(OTP);
 	}
 
-	@Override
-	public void setStatus(long userId, int status) throws Exception {
-		User user = getById(userId).orElseThrow(UserNotFoundException::new);
-
-		user.setStatus(status);
-		user.setStatusUpdatedAt(System.currentTimeMillis());
-		userRepository.save(user);
-
-		List<Long> recipients = memberService.getChannelsByUserId(user.getId()).stream()
-				.flatMap(channel -> channel.getMembers().stream())
-				.map(Member::getId)
-				.distinct()
-				.collect(Collectors.toList());
-
-		gatewayService.sendMessageToSpecificSessions(recipients, GatewayConstant.Opcode.DISPATCH.ordinal(), new StatusDTO(userId, status), GatewayConstant.Event.USER_STATUS_UPDATE.getValue());
-		log.debug("Set user {} status {} successfully", user.getUsername(), status);
-	}
-
 	@Override
 	public User addContact(User user, long id) throws UserContactAlreadyExistException {
 		try {
@@ -0,0 +1,9 @@
+CREATE TABLE gateway_dispatches
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    payload    TEXT                                    NOT NULL,
+    created_at BIGINT                                  NOT NULL,
+    CONSTRAINT pk_gateway_dispatches PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_gateway_dispatch_created_at ON gateway_dispatches (created_at);
@@ -0,0 +1,3 @@
+CREATE INDEX idx_message_channel_id_id ON messages (channel_id, id);
+
+CREATE INDEX idx_member_channel_id ON members (channel_id);
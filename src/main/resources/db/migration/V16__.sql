@@ -0,0 +1,15 @@
+CREATE TABLE gateway_nodes
+(
+    node_id VARCHAR(36) NOT NULL,
+    seen_at BIGINT      NOT NULL,
+    CONSTRAINT pk_gateway_nodes PRIMARY KEY (node_id)
+);
+
+CREATE TABLE gateway_presences
+(
+    user_id BIGINT      NOT NULL,
+    node_id VARCHAR(36) NOT NULL,
+    CONSTRAINT pk_gateway_presences PRIMARY KEY (user_id, node_id)
+);
+
+CREATE INDEX idx_gateway_presence_node_id ON gateway_presences (node_id);